@@ -0,0 +1,449 @@
+package org.json.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+
+// Generates a JSONPOJOClassAdapter for each class annotated with @JSONPOJOAdapter, and lists the adapters in
+// META-INF/services for ServiceLoader. An adapter reads and writes the fields directly, so they must be
+// visible from the class's own package and not final. The fields are those getDeepDeclaredFields() finds:
+// every non-static field of the class and its superclasses, a field hidden by one of a subclass keyed by its
+// declaring class's name. Only primitive and String values are set straight from the JSON; the adapter hands
+// everything else back to the reader.
+@SupportedAnnotationTypes(JSONPOJOAdapterProcessor.ANNOTATION)
+public class JSONPOJOAdapterProcessor extends AbstractProcessor
+{
+    static final String ANNOTATION = "org.json.internal.pojo.JSONPOJOAdapter";
+    private static final String SERVICE_FILE = "META-INF/services/org.json.internal.pojo.JSONPOJOClassAdapter";
+    private static final String ADAPTER_SUFFIX = "_JSONPOJOAdapter";
+
+    private final Set<String> adapters = new TreeSet<String>();
+
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round)
+    {
+        if (round.processingOver())
+        {
+            if (!adapters.isEmpty())
+            {
+                writeServiceFile();
+            }
+            return false;
+        }
+        final TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null)
+        {
+            return false;
+        }
+        for (Element element : round.getElementsAnnotatedWith(annotation))
+        {
+            if (element.getKind() != ElementKind.CLASS)
+            {
+                error(element, "@JSONPOJOAdapter applies to classes only");
+                continue;
+            }
+            try
+            {
+                generate((TypeElement) element);
+            }
+            catch (IOException e)
+            {
+                error(element, "Unable to write JSONPOJOClassAdapter: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void error(Element element, String message)
+    {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    // One non-static field as the adapter reads and writes it
+    private static final class FieldInfo
+    {
+        String key;         // JSON key, as getDeepDeclaredFields() names it
+        String access;      // Java expression of the field, on a variable named obj
+        TypeMirror type;
+        boolean written;    // not transient
+    }
+
+    private void generate(TypeElement type) throws IOException
+    {
+        final Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT))
+        {
+            error(type, "@JSONPOJOAdapter class must not be abstract");
+            return;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement())
+        {
+            if (e.getModifiers().contains(Modifier.PRIVATE))
+            {
+                error(type, "@JSONPOJOAdapter class must not be private or inside a private class");
+                return;
+            }
+            if (((TypeElement) e).getNestingKind() == NestingKind.MEMBER && !e.getModifiers().contains(Modifier.STATIC))
+            {
+                error(type, "@JSONPOJOAdapter class must be top level or static");
+                return;
+            }
+            if (((TypeElement) e).getNestingKind() == NestingKind.LOCAL || ((TypeElement) e).getNestingKind() == NestingKind.ANONYMOUS)
+            {
+                error(type, "@JSONPOJOAdapter class must be top level or static");
+                return;
+            }
+        }
+
+        final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        final List<FieldInfo> fields = fields(type, pkg);
+        if (fields == null)
+        {
+            return;
+        }
+
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String className = type.getQualifiedName().toString();
+        final String adapterName = adapterName(type);
+        final String adapterClass = packageName.isEmpty() ? adapterName : packageName + '.' + adapterName;
+
+        final StringBuilder s = new StringBuilder();
+        if (!packageName.isEmpty())
+        {
+            s.append("package ").append(packageName).append(";\n\n");
+        }
+        s.append("// Generated by ").append(JSONPOJOAdapterProcessor.class.getName()).append(" from ").append(className).append(". Do not edit.\n");
+        if (!type.getTypeParameters().isEmpty())
+        {
+            s.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        }
+        s.append("public final class ").append(adapterName).append(" implements org.json.internal.pojo.JSONPOJOClassAdapter<").append(className).append(">\n");
+        s.append("{\n");
+
+        s.append("    public java.lang.Class<").append(className).append("> getAdaptedClass()\n");
+        s.append("    {\n");
+        s.append("        return ").append(className).append(".class;\n");
+        s.append("    }\n\n");
+
+        s.append("    public ").append(className).append(" newInstance()\n");
+        s.append("    {\n");
+        s.append("        return ").append(hasNoArgConstructor(type) ? "new " + className + "()" : "null").append(";\n");
+        s.append("    }\n\n");
+
+        s.append("    public boolean writeFields(").append(className).append(" obj, boolean first, org.json.internal.pojo.JSONPOJOWriter writer) throws java.io.IOException\n");
+        s.append("    {\n");
+        for (FieldInfo field : fields)
+        {
+            if (!field.written)
+            {
+                continue;
+            }
+            s.append("        first = writer.writeField(first, ").append(literal('"' + field.key + "\":")).append(", ").append(field.access);
+            if (!field.type.getKind().isPrimitive())
+            {
+                s.append(", ").append(classLiteral(field.type));
+            }
+            s.append(");\n");
+        }
+        s.append("        return first;\n");
+        s.append("    }\n\n");
+
+        s.append("    public void readFields(org.json.internal.pojo.JSONPOJOElement<java.lang.String, java.lang.Object> jsonObj, ").append(className)
+                .append(" obj, org.json.internal.pojo.JSONPOJOClassAdapter.Fields fields)\n");
+        s.append("    {\n");
+        s.append("        for (java.util.Map.Entry<java.lang.String, java.lang.Object> e : jsonObj.entrySet())\n");
+        s.append("        {\n");
+        s.append("            final java.lang.Object value = e.getValue();\n");
+        s.append("            switch (e.getKey())\n");
+        s.append("            {\n");
+        for (FieldInfo field : fields)
+        {
+            final String[] set = directSet(field);
+            if (set == null)
+            {
+                continue;
+            }
+            s.append("                case ").append(literal(field.key)).append(":\n");
+            s.append("                    if (value instanceof ").append(set[0]).append(")\n");
+            s.append("                    {\n");
+            s.append("                        ").append(field.access).append(" = ").append(set[1]).append(";\n");
+            s.append("                        continue;\n");
+            s.append("                    }\n");
+            s.append("                    break;\n");
+        }
+        s.append("                default:\n");
+        s.append("                    break;\n");
+        s.append("            }\n");
+        s.append("            fields.assign(e.getKey(), value);\n");
+        s.append("        }\n");
+        s.append("    }\n");
+        s.append("}\n");
+
+        try (Writer out = processingEnv.getFiler().createSourceFile(adapterClass, type).openWriter())
+        {
+            out.write(s.toString());
+        }
+        adapters.add(adapterClass);
+    }
+
+    // The fields in the order of getDeepDeclaredFields(), or null after reporting one the adapter cannot reach
+    private List<FieldInfo> fields(TypeElement type, PackageElement pkg)
+    {
+        final List<FieldInfo> fields = new ArrayList<FieldInfo>();
+        final Set<String> names = new HashSet<String>();
+        boolean ok = true;
+        TypeElement curr = type;
+        while (curr != null && !curr.getQualifiedName().contentEquals("java.lang.Object"))
+        {
+            final boolean samePackage = processingEnv.getElementUtils().getPackageOf(curr).equals(pkg);
+            for (VariableElement field : ElementFilter.fieldsIn(curr.getEnclosedElements()))
+            {
+                final Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC))
+                {
+                    continue;
+                }
+                final String name = field.getSimpleName().toString();
+                if ("metaClass".equals(name) && "groovy.lang.MetaClass".equals(field.asType().toString()))
+                {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.PRIVATE) || (!modifiers.contains(Modifier.PUBLIC) && !samePackage))
+                {
+                    error(field, "Field " + name + " is not visible to the @JSONPOJOAdapter adapter of " + type.getQualifiedName());
+                    ok = false;
+                    continue;
+                }
+                if (modifiers.contains(Modifier.FINAL))
+                {
+                    error(field, "Field " + name + " is final, which the @JSONPOJOAdapter adapter of " + type.getQualifiedName() + " cannot set");
+                    ok = false;
+                    continue;
+                }
+                if (!isVisible(field.asType(), pkg))
+                {
+                    error(field, "Type of field " + name + " is not visible to the @JSONPOJOAdapter adapter of " + type.getQualifiedName());
+                    ok = false;
+                    continue;
+                }
+
+                final FieldInfo info = new FieldInfo();
+                info.type = field.asType();
+                info.written = !modifiers.contains(Modifier.TRANSIENT);
+                if (names.add(name))
+                {
+                    info.key = name;
+                    info.access = "obj." + name;
+                }
+                else
+                {   // Hidden by a field of a subclass
+                    if (curr.getModifiers().contains(Modifier.PRIVATE) || (!curr.getModifiers().contains(Modifier.PUBLIC) && !samePackage))
+                    {
+                        error(field, "Class declaring the hidden field " + name + " is not visible to the @JSONPOJOAdapter adapter of " + type.getQualifiedName());
+                        ok = false;
+                        continue;
+                    }
+                    info.key = processingEnv.getElementUtils().getBinaryName(curr) + "." + name;
+                    info.access = "((" + curr.getQualifiedName() + ") obj)." + name;
+                }
+                fields.add(info);
+            }
+            final TypeMirror superclass = curr.getSuperclass();
+            curr = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return ok ? fields : null;
+    }
+
+    // Whether the generated class can name the erasure of t in a class literal
+    private boolean isVisible(TypeMirror t, PackageElement pkg)
+    {
+        final TypeMirror erased = processingEnv.getTypeUtils().erasure(t);
+        if (erased.getKind() == TypeKind.ARRAY)
+        {
+            return isVisible(((ArrayType) erased).getComponentType(), pkg);
+        }
+        if (erased.getKind() != TypeKind.DECLARED)
+        {
+            return true;
+        }
+        for (Element e = ((DeclaredType) erased).asElement(); e instanceof TypeElement; e = e.getEnclosingElement())
+        {
+            final Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) ||
+                    (!modifiers.contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(e).equals(pkg)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String classLiteral(TypeMirror t)
+    {
+        return typeName(processingEnv.getTypeUtils().erasure(t)) + ".class";
+    }
+
+    private static String typeName(TypeMirror t)
+    {
+        if (t.getKind() == TypeKind.ARRAY)
+        {
+            return typeName(((ArrayType) t).getComponentType()) + "[]";
+        }
+        if (t.getKind() == TypeKind.DECLARED)
+        {
+            return ((TypeElement) ((DeclaredType) t).asElement()).getQualifiedName().toString();
+        }
+        return t.getKind().name().toLowerCase();
+    }
+
+    // The class a JSON value must be to set the field directly, and the expression converting value to the
+    // field's type, as JSONPOJOReadPlan's setParsed() converts it; null for fields left to the reader
+    private static String[] directSet(FieldInfo field)
+    {
+        switch (field.type.getKind())
+        {
+            case BOOLEAN:
+                return new String[] {"java.lang.Boolean", "((java.lang.Boolean) value).booleanValue()"};
+            case BYTE:
+                return new String[] {"java.lang.Number", "((java.lang.Number) value).byteValue()"};
+            case SHORT:
+                return new String[] {"java.lang.Number", "((java.lang.Number) value).shortValue()"};
+            case INT:
+                return new String[] {"java.lang.Number", "((java.lang.Number) value).intValue()"};
+            case LONG:
+                return new String[] {"java.lang.Number", "((java.lang.Number) value).longValue()"};
+            case FLOAT:
+                return new String[] {"java.lang.Number", "((java.lang.Number) value).floatValue()"};
+            case DOUBLE:
+                return new String[] {"java.lang.Number", "((java.lang.Number) value).doubleValue()"};
+            case DECLARED:
+                if (typeName(field.type).equals("java.lang.String"))
+                {
+                    return new String[] {"java.lang.String", "(java.lang.String) value"};
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    // A constructor without parameters or checked exceptions that the same package can call
+    private static boolean hasNoArgConstructor(TypeElement type)
+    {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+        {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+            {
+                return constructor.getThrownTypes().isEmpty();
+            }
+        }
+        return false;
+    }
+
+    // Outer_Inner_JSONPOJOAdapter for a class Inner nested in Outer
+    private static String adapterName(TypeElement type)
+    {
+        String name = type.getSimpleName().toString();
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement())
+        {
+            name = e.getSimpleName() + "_" + name;
+        }
+        return name + ADAPTER_SUFFIX;
+    }
+
+    // A Java string literal of s, non-ASCII chars escaped so the generated source reads the same in any encoding
+    private static String literal(String s)
+    {
+        final StringBuilder b = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                b.append('\\').append(c);
+            }
+            else if (c < 0x20 || c > 0x7e)
+            {
+                b.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                b.append(c);
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    // Lists the adapters of this compilation along with those of an earlier one into the same output, so that
+    // compiling only some of the annotated classes keeps the others
+    private void writeServiceFile()
+    {
+        final Set<String> lines = new TreeSet<String>(adapters);
+        try
+        {
+            final FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8)))
+            {
+                String line;
+                while ((line = in.readLine()) != null)
+                {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#"))
+                    {
+                        lines.add(line);
+                    }
+                }
+            }
+        }
+        catch (IOException ignored)
+        {   // No earlier file
+        }
+
+        try (Writer out = new OutputStreamWriter(processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openOutputStream(), StandardCharsets.UTF_8))
+        {
+            for (String line : lines)
+            {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+}
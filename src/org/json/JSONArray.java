@@ -964,9 +964,36 @@ public class JSONArray implements Iterable<Object> {
         }
         return this;
     }
-    
+
+    /**
+     * Insert a value in the JSONArray at the given index, shifting the value
+     * currently at that position (if any) and any subsequent values to the
+     * right. If the index equals the length of the JSONArray the value is
+     * appended.
+     *
+     * @param index
+     *            The subscript. It must be between 0 and the length of the
+     *            JSONArray, inclusive.
+     * @param value
+     *            The value to insert into the array. The value should be a
+     *            Boolean, Double, Integer, JSONArray, JSONObject, Long, or
+     *            String, or the JSONObject.NULL object.
+     * @return this.
+     * @throws JSONException
+     *             If the index is out of range or if the value is an invalid
+     *             number.
+     */
+    public JSONArray insert(int index, Object value) throws JSONException {
+        JSONObject.testValidity(value);
+        if (index < 0 || index > this.length()) {
+            throw new JSONException("JSONArray[" + index + "] not found.");
+        }
+        this.myArrayList.add(index, value);
+        return this;
+    }
+
     /**
-     * Creates a JSONPointer using an initialization string and tries to 
+     * Creates a JSONPointer using an initialization string and tries to
      * match it to an item within this JSONArray. For example, given a
      * JSONArray initialized with this document:
      * <pre>
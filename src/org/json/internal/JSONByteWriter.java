@@ -0,0 +1,424 @@
+package org.json.internal;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.exceptions.JSONException;
+
+/**
+ * JSONByteWriter is a {@link JSONWriter} that produces UTF-8 bytes instead of
+ * characters. It has the same <code>object</code>, <code>key</code>,
+ * <code>value</code>, <code>endObject</code>, <code>array</code> and
+ * <code>endArray</code> methods, but encodes the text directly into byte
+ * chunks taken from a shared pool, so no <code>OutputStreamWriter</code> is
+ * involved. For example, <pre>
+ * JSONByteWriter writer = new JSONByteWriter(channel);
+ * writer.object()
+ *     .key("JSON")
+ *     .value("Hello, World!")
+ *   .endObject();
+ * writer.close();</pre>
+ * <p>
+ * The chunks are written out once the buffered text reaches a configurable
+ * threshold, when {@link #flush()} is called, and when the writer is closed.
+ * When the target is a {@link GatheringByteChannel} all the buffered chunks
+ * are handed to the channel in a single gathering write. Closing the writer
+ * returns its chunks to the pool and closes the target.
+ * <p>
+ * The escaping rules are those of {@link org.json.JSONObject#quote}.
+ */
+public class JSONByteWriter extends JSONWriter implements Flushable, Closeable {
+
+    /**
+     * The size of the pooled chunks.
+     */
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    /**
+     * The number of idle chunks kept in the pool.
+     */
+    private static final int POOL_SIZE = 64;
+
+    /**
+     * The default amount of buffered text, in bytes, that triggers a write to
+     * the target.
+     */
+    public static final int DEFAULT_FLUSH_THRESHOLD = 64 * 1024;
+
+    private static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final int threshold;
+
+    /**
+     * The filled chunks, followed by the chunk being filled.
+     */
+    private byte[][] chunks = new byte[4][];
+    private int[] lengths = new int[4];
+    private int count;
+
+    /**
+     * The chunk being filled and the position in it.
+     */
+    private byte[] chunk;
+    private int position;
+
+    /**
+     * The number of bytes in the filled chunks.
+     */
+    private int buffered;
+
+    /**
+     * Make a fresh JSONByteWriter writing to a stream.
+     * @param out The stream that will receive the output.
+     */
+    public JSONByteWriter(OutputStream out) {
+        this(out, null, DEFAULT_FLUSH_THRESHOLD, true);
+    }
+
+    /**
+     * Make a fresh JSONByteWriter writing to a stream.
+     * @param out The stream that will receive the output.
+     * @param threshold The amount of buffered text, in bytes, that triggers a
+     *  write to the stream.
+     * @param checkKeys Whether to reject duplicate keys within an object.
+     */
+    public JSONByteWriter(OutputStream out, int threshold, boolean checkKeys) {
+        this(out, null, threshold, checkKeys);
+    }
+
+    /**
+     * Make a fresh JSONByteWriter writing to a channel.
+     * @param channel The channel that will receive the output.
+     */
+    public JSONByteWriter(WritableByteChannel channel) {
+        this(null, channel, DEFAULT_FLUSH_THRESHOLD, true);
+    }
+
+    /**
+     * Make a fresh JSONByteWriter writing to a channel.
+     * @param channel The channel that will receive the output. If it is a
+     *  {@link GatheringByteChannel}, buffered chunks are written together.
+     * @param threshold The amount of buffered text, in bytes, that triggers a
+     *  write to the channel.
+     * @param checkKeys Whether to reject duplicate keys within an object.
+     */
+    public JSONByteWriter(WritableByteChannel channel, int threshold, boolean checkKeys) {
+        this(null, channel, threshold, checkKeys);
+    }
+
+    private JSONByteWriter(OutputStream stream, WritableByteChannel channel, int threshold, boolean checkKeys) {
+        super(null, checkKeys);
+        if (stream == null && channel == null) {
+            throw new NullPointerException("output cannot be null");
+        }
+        this.stream = stream;
+        this.channel = channel;
+        this.threshold = Math.max(threshold, 1);
+        this.chunk = acquire();
+    }
+
+    /**
+     * Write all buffered text to the target and flush it.
+     * @throws JSONException If the target fails.
+     */
+    public void flush() throws JSONException {
+        try {
+            this.drain();
+            if (this.stream != null) {
+                this.stream.flush();
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Write all buffered text to the target, return the buffers to the pool
+     * and close the target. The writer cannot be used afterwards.
+     * @throws JSONException If the target fails.
+     */
+    public void close() throws JSONException {
+        if (this.chunk == null) {
+            return;
+        }
+        try {
+            this.drain();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        } finally {
+            release(this.chunk);
+            this.chunk = null;
+            try {
+                if (this.stream != null) {
+                    this.stream.close();
+                } else {
+                    this.channel.close();
+                }
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+
+    @Override
+    protected void write(char c) throws IOException {
+        if (c < 0x80) {
+            this.ensure(1);
+            this.chunk[this.position++] = (byte) c;
+        } else {
+            this.write(String.valueOf(c));
+        }
+    }
+
+    @Override
+    protected void write(String string) throws IOException {
+        int length = string.length();
+        for (int i = 0; i < length; i += 1) {
+            this.ensure(4);
+            i = this.encode(string, i, length);
+        }
+    }
+
+    @Override
+    protected void write(char[] chars, int length) throws IOException {
+        if (length > 64) {
+            this.write(new String(chars, 0, length));
+            return;
+        }
+        this.ensure(length);
+        for (int i = 0; i < length; i += 1) {
+            char c = chars[i];
+            if (c >= 0x80) {
+                this.write(new String(chars, i, length - i));
+                return;
+            }
+            this.chunk[this.position++] = (byte) c;
+        }
+    }
+
+    @Override
+    protected void writeQuoted(String string) throws IOException {
+        int length = string.length();
+        this.ensure(1);
+        this.chunk[this.position++] = '"';
+        char b;
+        char c = 0;
+        for (int i = 0; i < length; i += 1) {
+            // the longest output for one char is a six byte escape
+            this.ensure(6);
+            byte[] bytes = this.chunk;
+            b = c;
+            c = string.charAt(i);
+            switch (c) {
+            case '\\':
+            case '"':
+                bytes[this.position++] = '\\';
+                bytes[this.position++] = (byte) c;
+                break;
+            case '/':
+                if (b == '<') {
+                    bytes[this.position++] = '\\';
+                }
+                bytes[this.position++] = '/';
+                break;
+            case '\b':
+                bytes[this.position++] = '\\';
+                bytes[this.position++] = 'b';
+                break;
+            case '\t':
+                bytes[this.position++] = '\\';
+                bytes[this.position++] = 't';
+                break;
+            case '\n':
+                bytes[this.position++] = '\\';
+                bytes[this.position++] = 'n';
+                break;
+            case '\f':
+                bytes[this.position++] = '\\';
+                bytes[this.position++] = 'f';
+                break;
+            case '\r':
+                bytes[this.position++] = '\\';
+                bytes[this.position++] = 'r';
+                break;
+            default:
+                if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
+                        || (c >= '\u2000' && c < '\u2100')) {
+                    bytes[this.position++] = '\\';
+                    bytes[this.position++] = 'u';
+                    bytes[this.position++] = HEX[(c >> 12) & 0xF];
+                    bytes[this.position++] = HEX[(c >> 8) & 0xF];
+                    bytes[this.position++] = HEX[(c >> 4) & 0xF];
+                    bytes[this.position++] = HEX[c & 0xF];
+                } else if (c < 0x80) {
+                    bytes[this.position++] = (byte) c;
+                } else {
+                    i = this.encode(string, i, length);
+                }
+            }
+        }
+        this.ensure(1);
+        this.chunk[this.position++] = '"';
+    }
+
+    /**
+     * Encode the char at index i, or the surrogate pair starting there, into
+     * the current chunk, which must have room for four bytes.
+     * @return The index of the last char consumed.
+     */
+    private int encode(String string, int i, int length) {
+        byte[] bytes = this.chunk;
+        char c = string.charAt(i);
+        if (c < 0x80) {
+            bytes[this.position++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[this.position++] = (byte) (0xC0 | (c >> 6));
+            bytes[this.position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, string.charAt(i + 1));
+                bytes[this.position++] = (byte) (0xF0 | (cp >> 18));
+                bytes[this.position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[this.position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[this.position++] = (byte) (0x80 | (cp & 0x3F));
+                return i + 1;
+            }
+            // unpaired surrogates are replaced, as the UTF-8 charset does
+            bytes[this.position++] = '?';
+        } else {
+            bytes[this.position++] = (byte) (0xE0 | (c >> 12));
+            bytes[this.position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[this.position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    /**
+     * Make sure the current chunk has room for n more bytes, moving to a new
+     * chunk and writing out the buffered ones when needed.
+     */
+    private void ensure(int n) throws IOException {
+        if (this.chunk == null) {
+            throw new IOException("JSONByteWriter is closed");
+        }
+        if (this.position + n <= this.chunk.length) {
+            return;
+        }
+        if (this.count == this.chunks.length) {
+            byte[][] chunks = new byte[this.count * 2][];
+            int[] lengths = new int[this.count * 2];
+            System.arraycopy(this.chunks, 0, chunks, 0, this.count);
+            System.arraycopy(this.lengths, 0, lengths, 0, this.count);
+            this.chunks = chunks;
+            this.lengths = lengths;
+        }
+        this.chunks[this.count] = this.chunk;
+        this.lengths[this.count] = this.position;
+        this.count += 1;
+        this.buffered += this.position;
+        this.chunk = acquire();
+        this.position = 0;
+        if (this.buffered >= this.threshold) {
+            this.drain();
+        }
+    }
+
+    /**
+     * Write the filled chunks and the current one to the target.
+     */
+    private void drain() throws IOException {
+        if (this.position > 0) {
+            this.chunks = this.count == this.chunks.length ? grow(this.chunks) : this.chunks;
+            this.lengths = this.count == this.lengths.length ? grow(this.lengths) : this.lengths;
+            this.chunks[this.count] = this.chunk;
+            this.lengths[this.count] = this.position;
+            this.count += 1;
+        }
+        try {
+            if (this.count == 0) {
+                return;
+            }
+            if (this.stream != null) {
+                for (int i = 0; i < this.count; i += 1) {
+                    this.stream.write(this.chunks[i], 0, this.lengths[i]);
+                }
+            } else {
+                ByteBuffer[] buffers = new ByteBuffer[this.count];
+                long remaining = 0;
+                for (int i = 0; i < this.count; i += 1) {
+                    buffers[i] = ByteBuffer.wrap(this.chunks[i], 0, this.lengths[i]);
+                    remaining += this.lengths[i];
+                }
+                if (this.channel instanceof GatheringByteChannel) {
+                    GatheringByteChannel gathering = (GatheringByteChannel) this.channel;
+                    int first = 0;
+                    while (remaining > 0) {
+                        remaining -= gathering.write(buffers, first, buffers.length - first);
+                        while (first < buffers.length && !buffers[first].hasRemaining()) {
+                            first += 1;
+                        }
+                    }
+                } else {
+                    for (ByteBuffer buffer : buffers) {
+                        while (buffer.hasRemaining()) {
+                            this.channel.write(buffer);
+                        }
+                    }
+                }
+            }
+        } finally {
+            // keep the current chunk, return the others to the pool
+            for (int i = 0; i < this.count; i += 1) {
+                if (this.chunks[i] != this.chunk) {
+                    release(this.chunks[i]);
+                }
+                this.chunks[i] = null;
+            }
+            this.count = 0;
+            this.buffered = 0;
+            this.position = 0;
+        }
+    }
+
+    private static byte[][] grow(byte[][] chunks) {
+        byte[][] grown = new byte[chunks.length * 2][];
+        System.arraycopy(chunks, 0, grown, 0, chunks.length);
+        return grown;
+    }
+
+    private static int[] grow(int[] lengths) {
+        int[] grown = new int[lengths.length * 2];
+        System.arraycopy(lengths, 0, grown, 0, lengths.length);
+        return grown;
+    }
+
+    private static byte[] acquire() {
+        byte[] chunk = pool.poll();
+        if (chunk == null) {
+            return new byte[CHUNK_SIZE];
+        }
+        pooled.decrementAndGet();
+        return chunk;
+    }
+
+    private static void release(byte[] chunk) {
+        if (pooled.incrementAndGet() <= POOL_SIZE) {
+            pool.offer(chunk);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package org.json.internal;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Computes the difference between two JSON documents as a
+ * <a href="https://tools.ietf.org/html/rfc6902">RFC 6902</a> patch which can
+ * be applied with {@link JSONPatch}:
+ *
+ * <pre><code>
+ * JSONArray patch = JSONDiff.diff(before, after);
+ * JSONPatch.apply(copyOfBefore, patch); // now similar to after
+ * </code></pre>
+ * <p>
+ * Both documents are hashed bottom up with a 64 bit structural hash, and the
+ * hashes of large containers are cached for the duration of the diff.
+ * Subtrees with equal hashes are taken to be equal and skipped without being
+ * compared, so only the changed paths are walked. Array elements are matched
+ * by hash using Myers' difference algorithm after their common prefix and
+ * suffix are trimmed. When the arrays are too far apart for that to be cheap
+ * they are first split around the elements that occur once in each, as in
+ * patience diff, and the gaps between those are matched in turn. Elements
+ * left without a match are paired by position, which still produces a
+ * correct, if longer, patch.
+ * <p>
+ * The values in the returned patch are shared with the second document
+ * rather than copied.
+ */
+public class JSONDiff {
+
+    /**
+     * Upper bound on the work, in element comparisons, spent matching the
+     * elements of one pair of arrays with Myers' algorithm.
+     */
+    private static final long ARRAY_MATCH_BUDGET = 20000000L;
+
+    /**
+     * Upper bound on the rounds of Myers' algorithm for one range. The saved
+     * rounds take memory growing with the square of their number, 4 MB here.
+     */
+    private static final int MAX_MATCH_ROUNDS = 1000;
+
+    /**
+     * Upper bound on the nesting of ranges split around their unique
+     * elements.
+     */
+    private static final int MAX_SPLIT_DEPTH = 32;
+
+    private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+    private static final long TRUE_HASH = 0x632BE59BD9B4E019L;
+    private static final long FALSE_HASH = 0x85157AF5C1D2E5A3L;
+
+    /**
+     * Containers with at least this many values, counting nested ones, have
+     * their hash cached. Smaller ones are cheaper to hash again.
+     */
+    private static final int CACHED_HASH_SIZE = 32;
+
+    private final Map<Object, Long> hashes = new IdentityHashMap<Object, Long>();
+    private final Map<JSONArray, long[]> elementHashes = new IdentityHashMap<JSONArray, long[]>();
+    private int hashed;
+    private final JSONArray patch = new JSONArray();
+
+    private JSONDiff() {
+    }
+
+    /**
+     * Computes a patch that turns {@code a} into {@code b}.
+     *
+     * @param a the source document
+     * @param b the target document
+     * @return the patch, an empty JSONArray if the documents are equal
+     */
+    public static JSONArray diff(JSONObject a, JSONObject b) {
+        JSONDiff diff = new JSONDiff();
+        diff.diff("", a, b);
+        return diff.patch;
+    }
+
+    /**
+     * Computes a patch that turns {@code a} into {@code b}.
+     *
+     * @param a the source document
+     * @param b the target document
+     * @return the patch, an empty JSONArray if the documents are equal
+     */
+    public static JSONArray diff(JSONArray a, JSONArray b) {
+        JSONDiff diff = new JSONDiff();
+        diff.diff("", a, b);
+        return diff.patch;
+    }
+
+    private void diff(String path, Object a, Object b) {
+        if (a == b) {
+            return;
+        }
+        if (a instanceof JSONObject && b instanceof JSONObject) {
+            if (hash(a) != hash(b)) {
+                diffObjects(path, (JSONObject) a, (JSONObject) b);
+            }
+        } else if (a instanceof JSONArray && b instanceof JSONArray) {
+            if (hash(a) != hash(b)) {
+                diffArrays(path, (JSONArray) a, (JSONArray) b);
+            }
+        } else if (!JSONPatch.valuesEqual(a, b)) {
+            operation("replace", path, b);
+        }
+    }
+
+    private void diffObjects(String path, JSONObject a, JSONObject b) {
+        Iterator<String> keys = a.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object va = a.opt(key);
+            Object vb = b.opt(key);
+            if (vb == null) {
+                operation("remove", path + '/' + JSONPatch.escape(key), null);
+            } else {
+                diff(path + '/' + JSONPatch.escape(key), va, vb);
+            }
+        }
+        keys = b.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!a.has(key)) {
+                operation("add", path + '/' + JSONPatch.escape(key), b.opt(key));
+            }
+        }
+    }
+
+    private void diffArrays(String path, JSONArray a, JSONArray b) {
+        long[] ha = elementHashes(a);
+        long[] hb = elementHashes(b);
+        int n = ha.length;
+        int m = hb.length;
+        int start = 0;
+        while (start < n && start < m && ha[start] == hb[start]) {
+            start += 1;
+        }
+        int endA = n;
+        int endB = m;
+        while (endA > start && endB > start && ha[endA - 1] == hb[endB - 1]) {
+            endA -= 1;
+            endB -= 1;
+        }
+
+        // index is the position in the array as patched so far
+        int index = start;
+        int i = start;
+        int j = start;
+        int[] script = match(ha, start, endA, hb, start, endB);
+        int s = 0;
+        while (s < script.length) {
+            if (script[s] == EQUAL) {
+                index += 1;
+                i += 1;
+                j += 1;
+                s += 1;
+                continue;
+            }
+            // a run of deletions and insertions: pair them up as
+            // replacements, then remove or add what is left
+            int deleted = 0;
+            int inserted = 0;
+            while (s < script.length && script[s] != EQUAL) {
+                if (script[s] == DELETE) {
+                    deleted += 1;
+                } else {
+                    inserted += 1;
+                }
+                s += 1;
+            }
+            int paired = Math.min(deleted, inserted);
+            for (int p = 0; p < paired; p += 1) {
+                replaceOrDiff(path, index++, a.opt(i++), b.opt(j++));
+            }
+            for (int p = paired; p < deleted; p += 1) {
+                operation("remove", path + '/' + index, null);
+                i += 1;
+            }
+            for (int p = paired; p < inserted; p += 1) {
+                operation("add", path + '/' + index++, b.opt(j++));
+            }
+        }
+    }
+
+    /**
+     * Recurses into two elements at the same position if they are containers
+     * of the same kind, and replaces the element otherwise.
+     */
+    private void replaceOrDiff(String path, int index, Object a, Object b) {
+        if ((a instanceof JSONObject && b instanceof JSONObject)
+                || (a instanceof JSONArray && b instanceof JSONArray)) {
+            diff(path + '/' + index, a, b);
+        } else if (!JSONPatch.valuesEqual(a, b)) {
+            operation("replace", path + '/' + index, b);
+        }
+    }
+
+    private static final int EQUAL = 0;
+    private static final int DELETE = 1;
+    private static final int INSERT = 2;
+
+    private static final int NONE = -1;
+    private static final int MANY = -2;
+
+    /**
+     * Matches two ranges of elements by hash.
+     *
+     * @return the edit script, made of EQUAL, DELETE and INSERT steps
+     */
+    private static int[] match(long[] ha, int fromA, int toA, long[] hb, int fromB, int toB) {
+        EditScript script = new EditScript(toA - fromA + toB - fromB);
+        match(ha, fromA, toA, hb, fromB, toB, 0, script);
+        return Arrays.copyOf(script.steps, script.length);
+    }
+
+    /**
+     * Appends the edit script of two ranges to {@code script}. Their common
+     * prefix and suffix are trimmed, and what is left is matched with Myers'
+     * algorithm if that fits in the budget. Otherwise the ranges are split
+     * around the elements that occur exactly once in each of them, taking the
+     * longest run of those which are in the same order in both, and the gaps
+     * between them are matched the same way. A gap without such elements has
+     * its elements paired by position.
+     */
+    private static void match(long[] ha, int fromA, int toA, long[] hb, int fromB, int toB, int depth,
+            EditScript script) {
+        int prefix = 0;
+        while (fromA + prefix < toA && fromB + prefix < toB && ha[fromA + prefix] == hb[fromB + prefix]) {
+            prefix += 1;
+        }
+        script.add(EQUAL, prefix);
+        fromA += prefix;
+        fromB += prefix;
+        int suffix = 0;
+        while (toA - suffix > fromA && toB - suffix > fromB && ha[toA - suffix - 1] == hb[toB - suffix - 1]) {
+            suffix += 1;
+        }
+        toA -= suffix;
+        toB -= suffix;
+
+        if (fromA == toA || fromB == toB || !myers(ha, fromA, toA, hb, fromB, toB, script)) {
+            int[] anchors = fromA == toA || fromB == toB || depth >= MAX_SPLIT_DEPTH ? null
+                    : anchors(ha, fromA, toA, hb, fromB, toB);
+            if (anchors == null) {
+                script.add(DELETE, toA - fromA);
+                script.add(INSERT, toB - fromB);
+            } else {
+                for (int p = 0; p < anchors.length; p += 2) {
+                    match(ha, fromA, anchors[p], hb, fromB, anchors[p + 1], depth + 1, script);
+                    script.add(EQUAL, 1);
+                    fromA = anchors[p] + 1;
+                    fromB = anchors[p + 1] + 1;
+                }
+                match(ha, fromA, toA, hb, fromB, toB, depth + 1, script);
+            }
+        }
+        script.add(EQUAL, suffix);
+    }
+
+    /**
+     * Matches two non-empty ranges with Myers' O(ND) algorithm and appends
+     * the edit script to {@code script}.
+     *
+     * @return false, having appended nothing, if the ranges are too far apart
+     *         to match within the rounds and the work left in the budget
+     */
+    private static boolean myers(long[] ha, int fromA, int toA, long[] hb, int fromB, int toB,
+            EditScript script) {
+        int n = toA - fromA;
+        int m = toB - fromB;
+        int max = n + m;
+        int limit = Math.min(max, MAX_MATCH_ROUNDS);
+        int[] v = new int[2 * max + 2];
+        int[][] trace = new int[limit + 1][];
+        int d;
+        found: for (d = 0; d <= limit; d += 1) {
+            if (script.work > ARRAY_MATCH_BUDGET) {
+                return false;
+            }
+            // keep v[-d..d] as it was before this round
+            trace[d] = new int[2 * d + 1];
+            System.arraycopy(v, max - d, trace[d], 0, 2 * d + 1);
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[max + k - 1] < v[max + k + 1])) {
+                    x = v[max + k + 1];
+                } else {
+                    x = v[max + k - 1] + 1;
+                }
+                int y = x - k;
+                int snake = x;
+                while (x < n && y < m && ha[fromA + x] == hb[fromB + y]) {
+                    x += 1;
+                    y += 1;
+                }
+                script.work += 1 + x - snake;
+                v[max + k] = x;
+                if (x >= n && y >= m) {
+                    break found;
+                }
+            }
+        }
+        if (d > limit) {
+            return false;
+        }
+
+        // walk back from (n, m) to (0, 0)
+        int[] steps = new int[n + m];
+        int s = steps.length;
+        int x = n;
+        int y = m;
+        for (; d >= 0; d -= 1) {
+            int[] previous = trace[d];
+            int k = x - y;
+            int previousK;
+            if (k == -d || (k != d && previous[k - 1 + d] < previous[k + 1 + d])) {
+                previousK = k + 1;
+            } else {
+                previousK = k - 1;
+            }
+            int previousX = d == 0 ? 0 : previous[previousK + d];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                steps[--s] = EQUAL;
+                x -= 1;
+                y -= 1;
+            }
+            if (d > 0) {
+                steps[--s] = x == previousX ? INSERT : DELETE;
+            }
+            x = previousX;
+            y = previousY;
+        }
+        script.add(steps, s, steps.length - s);
+        return true;
+    }
+
+    /**
+     * Finds the elements that occur exactly once in each of two ranges, and
+     * of those the longest run which is in the same order in both.
+     *
+     * @return the positions of the run, alternately in a and in b, or null
+     *         if there are no such elements
+     */
+    private static int[] anchors(long[] ha, int fromA, int toA, long[] hb, int fromB, int toB) {
+        // the position of each hash in a and in b, NONE if it does not
+        // occur there and MANY if it occurs more than once
+        Map<Long, int[]> positions = new HashMap<Long, int[]>();
+        for (int i = fromA; i < toA; i += 1) {
+            int[] at = positions.get(ha[i]);
+            if (at == null) {
+                positions.put(ha[i], new int[] { i, NONE });
+            } else {
+                at[0] = MANY;
+            }
+        }
+        for (int j = fromB; j < toB; j += 1) {
+            int[] at = positions.get(hb[j]);
+            if (at != null) {
+                at[1] = at[1] == NONE ? j : MANY;
+            }
+        }
+        int[] inA = new int[Math.min(toA - fromA, toB - fromB)];
+        int[] inB = new int[inA.length];
+        int count = 0;
+        for (int i = fromA; i < toA; i += 1) {
+            int[] at = positions.get(ha[i]);
+            if (at[0] == i && at[1] >= 0) {
+                inA[count] = i;
+                inB[count] = at[1];
+                count += 1;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+
+        // longest increasing run of the positions in b, by patience sorting:
+        // tails[l] ends the best run of length l + 1 found so far
+        int[] tails = new int[count];
+        int[] before = new int[count];
+        int length = 0;
+        for (int c = 0; c < count; c += 1) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (inB[tails[mid]] < inB[c]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            before[c] = low == 0 ? -1 : tails[low - 1];
+            tails[low] = c;
+            if (low == length) {
+                length += 1;
+            }
+        }
+        int[] anchors = new int[2 * length];
+        for (int c = tails[length - 1], p = anchors.length - 2; c >= 0; c = before[c], p -= 2) {
+            anchors[p] = inA[c];
+            anchors[p + 1] = inB[c];
+        }
+        return anchors;
+    }
+
+    /**
+     * An edit script being built, with the work spent matching so far.
+     */
+    private static final class EditScript {
+        final int[] steps;
+        int length;
+        long work;
+
+        EditScript(int capacity) {
+            this.steps = new int[capacity];
+        }
+
+        void add(int step, int count) {
+            Arrays.fill(this.steps, this.length, this.length + count, step);
+            this.length += count;
+        }
+
+        void add(int[] steps, int from, int count) {
+            System.arraycopy(steps, from, this.steps, this.length, count);
+            this.length += count;
+        }
+    }
+
+    /**
+     * Returns the hashes of the elements of an array. They are kept for large
+     * arrays, which are the ones whose elements get matched.
+     */
+    private long[] elementHashes(JSONArray ja) {
+        long[] cached = this.elementHashes.get(ja);
+        if (cached != null) {
+            return cached;
+        }
+        long[] values = new long[ja.length()];
+        for (int i = 0; i < values.length; i += 1) {
+            values[i] = hash(ja.opt(i));
+        }
+        return values;
+    }
+
+    /**
+     * Returns a structural hash of a JSON value. Values that
+     * {@link JSONPatch#valuesEqual} considers equal have the same hash.
+     */
+    private long hash(Object value) {
+        if (value instanceof JSONObject || value instanceof JSONArray) {
+            Long cached = this.hashes.get(value);
+            if (cached != null) {
+                return cached.longValue();
+            }
+            int before = this.hashed;
+            long h;
+            if (value instanceof JSONObject) {
+                JSONObject jo = (JSONObject) value;
+                // members are combined with a sum so that order does not matter
+                h = 0x4F1BBCDCBFA53E0AL;
+                Iterator<String> keys = jo.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    h += mix(hash(key) * 0xC2B2AE3D27D4EB4FL + hash(jo.opt(key)));
+                }
+            } else {
+                JSONArray ja = (JSONArray) value;
+                long[] values = elementHashes(ja);
+                h = 0x2545F4914F6CDD1DL;
+                for (int i = 0; i < values.length; i += 1) {
+                    h = mix(h * 31 + values[i]);
+                }
+                if (values.length >= CACHED_HASH_SIZE) {
+                    this.elementHashes.put(ja, values);
+                }
+            }
+            if (this.hashed - before >= CACHED_HASH_SIZE) {
+                this.hashes.put(value, Long.valueOf(h));
+            }
+            return h;
+        }
+        this.hashed += 1;
+        if (value instanceof String) {
+            return hash((String) value);
+        }
+        if (value instanceof Number) {
+            return hash((Number) value);
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue() ? TRUE_HASH : FALSE_HASH;
+        }
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return NULL_HASH;
+        }
+        return mix(value.hashCode());
+    }
+
+    /**
+     * Returns the hash of a number, equal for the numbers that
+     * {@link JSONPatch#valuesEqual} considers equal: those with the same
+     * decimal value, whatever their type.
+     */
+    private static long hash(Number number) {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short
+                || number instanceof Byte) {
+            return mix(number.longValue());
+        }
+        if (number instanceof Double || number instanceof Float) {
+            double d = number.doubleValue();
+            if (d == Math.rint(d) && Math.abs(d) < 0x1p53) {
+                return mix((long) d);
+            }
+        }
+        BigDecimal decimal;
+        try {
+            decimal = new BigDecimal(number.toString());
+        } catch (NumberFormatException e) {
+            // NaN and the infinities, which are only equal to themselves
+            return mix(number.hashCode());
+        }
+        decimal = decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() <= 19) {
+            try {
+                return mix(decimal.longValueExact());
+            } catch (ArithmeticException e) {
+                // beyond a long, hashed by its digits below
+            }
+        }
+        byte[] digits = decimal.unscaledValue().toByteArray();
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < digits.length; i += 1) {
+            h = (h ^ (digits[i] & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(h ^ ((long) decimal.scale() << 32));
+    }
+
+    private static long hash(String string) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < string.length(); i += 1) {
+            h = (h ^ string.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h ^ string.length());
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void operation(String op, String path, Object value) {
+        JSONObject operation = new JSONObject();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (value != null) {
+            operation.put("value", value);
+        }
+        this.patch.put(operation);
+    }
+}
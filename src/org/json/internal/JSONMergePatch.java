@@ -0,0 +1,145 @@
+package org.json.internal;
+
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A JSON Merge Patch as defined by
+ * <a href="https://tools.ietf.org/html/rfc7386">RFC 7386</a>. A merge patch
+ * is a JSONObject describing the members to change: members of the patch
+ * replace the members of the target with the same name, nested objects are
+ * merged recursively and members whose value is {@link JSONObject#NULL} are
+ * removed.
+ * <p>
+ * Only the members present in the patch are visited, so the cost of a merge
+ * depends on the size of the patch rather than the size of the target. Two
+ * flavours are provided:
+ * <ul>
+ * <li>{@link #merge(JSONObject, JSONObject)} changes the target in place.
+ * Objects added from the patch are copied, so the target never shares
+ * containers with the patch.</li>
+ * <li>{@link #merged(JSONObject, JSONObject)} leaves both arguments untouched
+ * and returns a new object sharing every member the patch does not change
+ * with the target, and every member it adds with the patch. Only the objects
+ * on the patched paths are allocated, which makes it suitable for layering
+ * several documents on top of each other:
+ *
+ * <pre><code>
+ * JSONObject config = JSONMergePatch.merged(defaults, environment);
+ * config = JSONMergePatch.merged(config, tenant);
+ * </code></pre>
+ *
+ * Because of this sharing, the result should be treated as read only, or
+ * copied before it is changed in place.</li>
+ * </ul>
+ */
+public class JSONMergePatch {
+
+    private JSONMergePatch() {
+    }
+
+    /**
+     * Merges a patch into a target object in place.
+     *
+     * @param target the object to change
+     * @param patch the merge patch
+     * @return {@code target}
+     */
+    public static JSONObject merge(JSONObject target, JSONObject patch) {
+        Iterator<String> keys = patch.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = patch.opt(key);
+            if (JSONObject.NULL.equals(value)) {
+                target.remove(key);
+            } else if (value instanceof JSONObject) {
+                Object current = target.opt(key);
+                if (current instanceof JSONObject) {
+                    merge((JSONObject) current, (JSONObject) value);
+                } else {
+                    target.put(key, merge(new JSONObject(), (JSONObject) value));
+                }
+            } else {
+                target.put(key, JSONPatch.copy(value));
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns the result of merging a patch into a target object, leaving
+     * both unchanged. The result shares the members the patch does not touch
+     * with {@code target}, and the members it adds with {@code patch}.
+     *
+     * @param target the object to merge into
+     * @param patch the merge patch
+     * @return the merged object
+     */
+    public static JSONObject merged(JSONObject target, JSONObject patch) {
+        JSONObject result = new JSONObject();
+        Iterator<String> keys = target.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            result.put(key, target.opt(key));
+        }
+        keys = patch.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = patch.opt(key);
+            if (JSONObject.NULL.equals(value)) {
+                result.remove(key);
+            } else if (value instanceof JSONObject) {
+                Object current = target.opt(key);
+                if (current instanceof JSONObject) {
+                    result.put(key, merged((JSONObject) current, (JSONObject) value));
+                } else if (hasNullMembers((JSONObject) value)) {
+                    result.put(key, merged(new JSONObject(), (JSONObject) value));
+                } else {
+                    result.put(key, value);
+                }
+            } else {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a merge patch to any JSON value, following the MergePatch
+     * function of RFC 7386: a patch that is not an object replaces the
+     * target, and a target that is not an object is replaced by an empty one
+     * before the patch is merged into it. Object targets are changed in
+     * place.
+     *
+     * @param target the value to patch, may be null
+     * @param patch the merge patch
+     * @return the patched value
+     */
+    public static Object apply(Object target, Object patch) {
+        if (!(patch instanceof JSONObject)) {
+            return patch instanceof JSONArray ? JSONPatch.copy(patch) : patch;
+        }
+        if (!(target instanceof JSONObject)) {
+            target = new JSONObject();
+        }
+        return merge((JSONObject) target, (JSONObject) patch);
+    }
+
+    /**
+     * Tells whether an object, or any object nested in it through other
+     * objects, has a member to be removed.
+     */
+    private static boolean hasNullMembers(JSONObject jo) {
+        Iterator<String> keys = jo.keys();
+        while (keys.hasNext()) {
+            Object value = jo.opt(keys.next());
+            if (JSONObject.NULL.equals(value)
+                    || (value instanceof JSONObject && hasNullMembers((JSONObject) value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
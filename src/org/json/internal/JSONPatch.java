@@ -0,0 +1,854 @@
+package org.json.internal;
+
+import static java.lang.String.format;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.exceptions.JSONException;
+import org.json.exceptions.JSONPatchException;
+
+/**
+ * A JSON Patch is a sequence of operations to apply to a JSON document, as
+ * defined by <a href="https://tools.ietf.org/html/rfc6902">RFC 6902</a>.
+ * <p>
+ * The patch document is a {@link JSONArray} of operation objects, each having
+ * an <code>op</code> member (one of <code>add</code>, <code>remove</code>,
+ * <code>replace</code>, <code>move</code>, <code>copy</code> or
+ * <code>test</code>), a <code>path</code> member holding a JSON Pointer and,
+ * depending on the operation, a <code>value</code> or <code>from</code>
+ * member. A JSONPatch is parsed once and can then be applied to any number
+ * of documents:
+ *
+ * <pre><code>
+ * JSONPatch patch = new JSONPatch(new JSONArray(text));
+ * Object result = patch.apply(document);
+ * </code></pre>
+ * <p>
+ * Operations are applied in place and in order. The containers addressed by
+ * the operations are cached by their parent path, so a run of operations on
+ * the same object or array resolves its parent only once. Runs of operations
+ * that would shift the elements of the same array are applied to a scratch
+ * buffer and written back in a single pass. Every change is recorded in an
+ * undo log; if an operation fails, the changes already made are reverted and
+ * a {@link JSONPatchException} is thrown, leaving the document as it was.
+ * <p>
+ * Values taken from the patch are copied before they are inserted, so a
+ * JSONPatch never shares its containers with the documents it modifies.
+ */
+public class JSONPatch {
+
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+    private static final int REPLACE = 2;
+    private static final int MOVE = 3;
+    private static final int COPY = 4;
+    private static final int TEST = 5;
+
+    private static final String[] OPERATION_NAMES = {
+            "add", "remove", "replace", "move", "copy", "test" };
+
+    /**
+     * Runs of operations on the same array with at least this many shifting
+     * operations are applied through a gap buffer.
+     */
+    private static final int ARRAY_BATCH_THRESHOLD = 2;
+
+    /**
+     * A parsed JSON Pointer. The parent is kept in its escaped string form so
+     * that it can be used as a cache key.
+     */
+    private static final class Path {
+        final String text;
+        final String[] tokens;
+        final String parent;
+
+        Path(String text, String[] tokens) {
+            this.text = text;
+            this.tokens = tokens;
+            this.parent = tokens.length == 0 ? null : text.substring(0, text.lastIndexOf('/'));
+        }
+
+        String last() {
+            return this.tokens[this.tokens.length - 1];
+        }
+
+        boolean isRoot() {
+            return this.tokens.length == 0;
+        }
+    }
+
+    private static final class Operation {
+        final int op;
+        final Path path;
+        final Path from;
+        final Object value;
+
+        Operation(int op, Path path, Path from, Object value) {
+            this.op = op;
+            this.path = path;
+            this.from = from;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return OPERATION_NAMES[this.op] + " " + this.path.text;
+        }
+    }
+
+    private final Operation[] operations;
+
+    /**
+     * Parses a patch document.
+     *
+     * @param patch the patch document, a JSONArray of operation objects
+     * @throws JSONPatchException if the patch document is malformed
+     */
+    public JSONPatch(JSONArray patch) throws JSONPatchException {
+        if (patch == null) {
+            throw new NullPointerException("patch cannot be null");
+        }
+        this.operations = new Operation[patch.length()];
+        for (int i = 0; i < this.operations.length; i += 1) {
+            Object item = patch.opt(i);
+            if (!(item instanceof JSONObject)) {
+                throw new JSONPatchException(format("patch operation %d is not an object", i));
+            }
+            this.operations[i] = parseOperation((JSONObject) item, i);
+        }
+    }
+
+    /**
+     * Applies a patch document to the given document.
+     *
+     * @param document the document to patch, usually a JSONObject or a
+     *            JSONArray
+     * @param patch the patch document
+     * @return the patched document; this is {@code document} itself unless
+     *         an operation replaced the whole document
+     * @throws JSONPatchException if the patch is malformed or cannot be
+     *             applied, in which case {@code document} is left unchanged
+     */
+    public static Object apply(Object document, JSONArray patch) throws JSONPatchException {
+        return new JSONPatch(patch).apply(document);
+    }
+
+    /**
+     * Applies this patch to the given document. The document is modified in
+     * place.
+     *
+     * @param document the document to patch, usually a JSONObject or a
+     *            JSONArray
+     * @return the patched document; this is {@code document} itself unless
+     *         an operation replaced the whole document
+     * @throws JSONPatchException if an operation cannot be applied, in which
+     *             case {@code document} is left unchanged
+     */
+    public Object apply(Object document) throws JSONPatchException {
+        Context context = new Context(document);
+        int i = 0;
+        try {
+            while (i < this.operations.length) {
+                int next = applyArrayRun(context, i);
+                if (next == i) {
+                    applyOperation(context, this.operations[i]);
+                    next = i + 1;
+                }
+                i = next;
+            }
+            return context.root;
+        } catch (RuntimeException e) {
+            context.undo.rollback();
+            if (e instanceof JSONPatchException) {
+                throw e;
+            }
+            throw new JSONPatchException(format("operation %d (%s) failed: %s", i,
+                    this.operations[i], e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Returns the number of operations in this patch.
+     *
+     * @return the number of operations
+     */
+    public int length() {
+        return this.operations.length;
+    }
+
+    private static Operation parseOperation(JSONObject jo, int index) {
+        String name = jo.optString("op", null);
+        int op = -1;
+        for (int i = 0; i < OPERATION_NAMES.length; i += 1) {
+            if (OPERATION_NAMES[i].equals(name)) {
+                op = i;
+                break;
+            }
+        }
+        if (op < 0) {
+            throw new JSONPatchException(format("patch operation %d has an invalid op [%s]", index, name));
+        }
+        Path path = parsePath(jo.opt("path"), "path", index);
+        Path from = null;
+        Object value = null;
+        if (op == MOVE || op == COPY) {
+            from = parsePath(jo.opt("from"), "from", index);
+        } else if (op == ADD || op == REPLACE || op == TEST) {
+            if (!jo.has("value")) {
+                throw new JSONPatchException(format("patch operation %d (%s) is missing its value", index, name));
+            }
+            value = jo.opt("value");
+        }
+        if (op == MOVE && isDescendant(from, path)) {
+            throw new JSONPatchException(format("patch operation %d cannot move %s into one of its children",
+                    index, from.text));
+        }
+        return new Operation(op, path, from, value);
+    }
+
+    private static Path parsePath(Object pointer, String member, int index) {
+        if (!(pointer instanceof String)) {
+            throw new JSONPatchException(format("patch operation %d is missing its %s", index, member));
+        }
+        String text = (String) pointer;
+        if (text.isEmpty()) {
+            return new Path(text, new String[0]);
+        }
+        if (text.charAt(0) != '/') {
+            throw new JSONPatchException(format("patch operation %d has an invalid %s [%s]", index, member, text));
+        }
+        String[] tokens = text.substring(1).split("/", -1);
+        for (int i = 0; i < tokens.length; i += 1) {
+            tokens[i] = unescape(tokens[i]);
+        }
+        return new Path(text, tokens);
+    }
+
+    /**
+     * Reverts the ~1 and ~0 escapes of RFC 6901.
+     */
+    static String unescape(String token) {
+        if (token.indexOf('~') < 0) {
+            return token;
+        }
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    /**
+     * Applies the ~0 and ~1 escapes of RFC 6901 to a reference token.
+     */
+    static String escape(String token) {
+        if (token.indexOf('~') < 0 && token.indexOf('/') < 0) {
+            return token;
+        }
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static boolean isDescendant(Path ancestor, Path path) {
+        return path.text.length() > ancestor.text.length()
+                && path.text.startsWith(ancestor.text)
+                && path.text.charAt(ancestor.text.length()) == '/';
+    }
+
+    private static void applyOperation(Context context, Operation operation) {
+        Path path = operation.path;
+        switch (operation.op) {
+        case ADD:
+            add(context, path, copy(operation.value));
+            break;
+        case REMOVE:
+            remove(context, path);
+            break;
+        case REPLACE:
+            replace(context, path, copy(operation.value));
+            break;
+        case MOVE:
+            if (!operation.from.text.equals(path.text)) {
+                add(context, path, remove(context, operation.from));
+            } else {
+                context.get(path);
+            }
+            break;
+        case COPY:
+            add(context, path, copy(context.get(operation.from)));
+            break;
+        case TEST:
+            if (!valuesEqual(context.get(path), operation.value)) {
+                throw new JSONPatchException(format("test failed: the value at %s is not equal to %s",
+                        path.text, operation.value));
+            }
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+    }
+
+    private static void add(Context context, Path path, Object value) {
+        if (path.isRoot()) {
+            context.replaceRoot(value);
+            return;
+        }
+        Object parent = context.parent(path);
+        String key = path.last();
+        if (parent instanceof JSONObject) {
+            JSONObject jo = (JSONObject) parent;
+            Object previous = jo.opt(key);
+            jo.put(key, value);
+            context.undo.put(jo, key, previous);
+            context.invalidate(path.text);
+        } else {
+            JSONArray ja = (JSONArray) parent;
+            int index = "-".equals(key) ? ja.length() : arrayIndex(path, key, ja.length() + 1);
+            ja.insert(index, value);
+            context.undo.inserted(ja, index);
+            context.invalidateChildren(path.parent);
+        }
+    }
+
+    private static Object remove(Context context, Path path) {
+        if (path.isRoot()) {
+            throw new JSONPatchException("the document root cannot be removed");
+        }
+        Object parent = context.parent(path);
+        String key = path.last();
+        Object previous;
+        if (parent instanceof JSONObject) {
+            JSONObject jo = (JSONObject) parent;
+            previous = jo.remove(key);
+            if (previous == null) {
+                throw new JSONPatchException(format("%s does not exist", path.text));
+            }
+            context.undo.put(jo, key, previous);
+            context.invalidate(path.text);
+        } else {
+            JSONArray ja = (JSONArray) parent;
+            int index = arrayIndex(path, key, ja.length());
+            previous = ja.remove(index);
+            context.undo.removed(ja, index, previous);
+            context.invalidateChildren(path.parent);
+        }
+        return previous;
+    }
+
+    private static void replace(Context context, Path path, Object value) {
+        if (path.isRoot()) {
+            context.replaceRoot(value);
+            return;
+        }
+        Object parent = context.parent(path);
+        String key = path.last();
+        if (parent instanceof JSONObject) {
+            JSONObject jo = (JSONObject) parent;
+            Object previous = jo.opt(key);
+            if (previous == null) {
+                throw new JSONPatchException(format("%s does not exist", path.text));
+            }
+            jo.put(key, value);
+            context.undo.put(jo, key, previous);
+        } else {
+            JSONArray ja = (JSONArray) parent;
+            int index = arrayIndex(path, key, ja.length());
+            Object previous = ja.opt(index);
+            ja.put(index, value);
+            context.undo.set(ja, index, previous);
+        }
+        context.invalidate(path.text);
+    }
+
+    /**
+     * Parses an array index token. The index must be lower than
+     * {@code limit}.
+     */
+    private static int arrayIndex(Path path, String token, int limit) {
+        int length = token.length();
+        boolean valid = length > 0 && length < 10 && (length == 1 || token.charAt(0) != '0');
+        for (int i = 0; valid && i < length; i += 1) {
+            char c = token.charAt(i);
+            valid = c >= '0' && c <= '9';
+        }
+        if (!valid) {
+            throw new JSONPatchException(format("%s is not an array index in %s", token, path.text));
+        }
+        int index = Integer.parseInt(token);
+        if (index >= limit) {
+            throw new JSONPatchException(format("index %d is out of bounds in %s", index, path.text));
+        }
+        return index;
+    }
+
+    /**
+     * Applies a run of operations on the elements of one array through a gap
+     * buffer, so that inserting or removing elements near each other costs
+     * no more than the distance between them instead of a full shift of the
+     * backing list. The array is written back once, at the end of the run.
+     *
+     * @return the index of the first operation after the run, or
+     *         {@code start} if the operation at {@code start} does not begin
+     *         a run worth batching
+     */
+    private int applyArrayRun(Context context, int start) {
+        Operation first = this.operations[start];
+        if (!isArrayElementOperation(first)) {
+            return start;
+        }
+        Object parent = context.parent(first.path);
+        if (!(parent instanceof JSONArray)) {
+            return start;
+        }
+        JSONArray ja = (JSONArray) parent;
+
+        // find the run and count the operations that would shift elements
+        int end = start;
+        int length = ja.length();
+        int shifting = 0;
+        while (end < this.operations.length) {
+            Operation operation = this.operations[end];
+            if (!isArrayElementOperation(operation) || !operation.path.parent.equals(first.path.parent)) {
+                break;
+            }
+            String key = operation.path.last();
+            if (operation.op == ADD) {
+                if (!"-".equals(key) && !key.equals(Integer.toString(length))) {
+                    shifting += 1;
+                }
+                length += 1;
+            } else if (operation.op == REMOVE) {
+                if (!key.equals(Integer.toString(length - 1))) {
+                    shifting += 1;
+                }
+                length -= 1;
+            }
+            end += 1;
+        }
+        if (shifting < ARRAY_BATCH_THRESHOLD) {
+            return start;
+        }
+
+        GapBuffer buffer = new GapBuffer(ja);
+        for (int i = start; i < end; i += 1) {
+            Operation operation = this.operations[i];
+            Path path = operation.path;
+            String key = path.last();
+            switch (operation.op) {
+            case ADD:
+                buffer.insert("-".equals(key) ? buffer.size() : arrayIndex(path, key, buffer.size() + 1),
+                        copy(operation.value));
+                break;
+            case REMOVE:
+                buffer.remove(arrayIndex(path, key, buffer.size()));
+                break;
+            case REPLACE:
+                buffer.set(arrayIndex(path, key, buffer.size()), copy(operation.value));
+                break;
+            case TEST:
+                Object actual = buffer.get(arrayIndex(path, key, buffer.size()));
+                if (!valuesEqual(actual, operation.value)) {
+                    throw new JSONPatchException(format("test failed: the value at %s is not equal to %s",
+                            path.text, operation.value));
+                }
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+        }
+        Object[] previous = contents(ja);
+        writeBack(ja, buffer.toArray());
+        context.undo.restore(ja, previous);
+        context.invalidateChildren(first.path.parent);
+        return end;
+    }
+
+    private static boolean isArrayElementOperation(Operation operation) {
+        return operation.op != MOVE && operation.op != COPY && !operation.path.isRoot();
+    }
+
+    private static Object[] contents(JSONArray ja) {
+        Object[] values = new Object[ja.length()];
+        for (int i = 0; i < values.length; i += 1) {
+            values[i] = ja.opt(i);
+        }
+        return values;
+    }
+
+    /**
+     * Replaces the elements of an array, touching only the slots that
+     * changed.
+     */
+    private static void writeBack(JSONArray ja, Object[] values) {
+        int common = Math.min(ja.length(), values.length);
+        for (int i = 0; i < common; i += 1) {
+            if (ja.opt(i) != values[i]) {
+                ja.put(i, values[i]);
+            }
+        }
+        for (int i = ja.length() - 1; i >= values.length; i -= 1) {
+            ja.remove(i);
+        }
+        for (int i = common; i < values.length; i += 1) {
+            ja.put(values[i]);
+        }
+    }
+
+    /**
+     * Makes a deep copy of a JSON value. Only containers are copied; the
+     * other JSON values are immutable.
+     */
+    static Object copy(Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject source = (JSONObject) value;
+            JSONObject target = new JSONObject();
+            for (String key : source.keySet()) {
+                target.put(key, copy(source.opt(key)));
+            }
+            return target;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray source = (JSONArray) value;
+            JSONArray target = new JSONArray();
+            for (int i = 0; i < source.length(); i += 1) {
+                target.put(copy(source.opt(i)));
+            }
+            return target;
+        }
+        return value;
+    }
+
+    /**
+     * Compares two JSON values as RFC 6902 requires for the test operation:
+     * numbers are equal if they are numerically equal, regardless of their
+     * Java type, and objects are equal regardless of member order.
+     */
+    static boolean valuesEqual(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof JSONObject) {
+            if (!(b instanceof JSONObject)) {
+                return false;
+            }
+            JSONObject ja = (JSONObject) a;
+            JSONObject jb = (JSONObject) b;
+            if (ja.length() != jb.length()) {
+                return false;
+            }
+            Iterator<String> keys = ja.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!valuesEqual(ja.opt(key), jb.opt(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof JSONArray) {
+            if (!(b instanceof JSONArray)) {
+                return false;
+            }
+            JSONArray ja = (JSONArray) a;
+            JSONArray jb = (JSONArray) b;
+            if (ja.length() != jb.length()) {
+                return false;
+            }
+            for (int i = 0; i < ja.length(); i += 1) {
+                if (!valuesEqual(ja.opt(i), jb.opt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                return ((Number) a).longValue() == ((Number) b).longValue();
+            }
+            try {
+                return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString())) == 0;
+            } catch (NumberFormatException e) {
+                return a.equals(b);
+            }
+        }
+        return a.equals(b);
+    }
+
+    private static boolean isIntegral(Object n) {
+        return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+    }
+
+    /**
+     * The state of one application of a patch: the current root, the
+     * containers resolved so far, keyed by their escaped path, and the undo
+     * log.
+     */
+    private static final class Context {
+        Object root;
+        final Map<String, Object> parents = new HashMap<String, Object>();
+        final UndoLog undo = new UndoLog();
+
+        Context(Object root) {
+            this.root = root;
+        }
+
+        Object get(Path path) {
+            if (path.isRoot()) {
+                return this.root;
+            }
+            Object value = child(parent(path), path.last(), path);
+            if (value == null) {
+                throw new JSONPatchException(format("%s does not exist", path.text));
+            }
+            return value;
+        }
+
+        /**
+         * Resolves the container holding the target of a path. The result is
+         * cached until an operation changes the container or one of its
+         * ancestors.
+         */
+        Object parent(Path path) {
+            Object parent = this.parents.get(path.parent);
+            if (parent != null) {
+                return parent;
+            }
+            parent = this.root;
+            String[] tokens = path.tokens;
+            for (int i = 0; i < tokens.length - 1; i += 1) {
+                parent = child(parent, tokens[i], path);
+                if (parent == null) {
+                    throw new JSONPatchException(format("the parent of %s does not exist", path.text));
+                }
+            }
+            if (!(parent instanceof JSONObject) && !(parent instanceof JSONArray)) {
+                throw new JSONPatchException(format("the parent of %s is not an object or an array", path.text));
+            }
+            this.parents.put(path.parent, parent);
+            return parent;
+        }
+
+        private static Object child(Object container, String token, Path path) {
+            if (container instanceof JSONObject) {
+                return ((JSONObject) container).opt(token);
+            }
+            if (container instanceof JSONArray) {
+                JSONArray ja = (JSONArray) container;
+                return ja.opt(arrayIndex(path, token, ja.length()));
+            }
+            throw new JSONPatchException(format("value [%s] is not an array or object therefore %s cannot be resolved",
+                    container, path.text));
+        }
+
+        void replaceRoot(Object value) {
+            this.root = value;
+            this.parents.clear();
+        }
+
+        /**
+         * Forgets the cached containers at or below a path.
+         */
+        void invalidate(String path) {
+            if (this.parents.isEmpty()) {
+                return;
+            }
+            Iterator<String> keys = this.parents.keySet().iterator();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (key.startsWith(path) && (key.length() == path.length() || key.charAt(path.length()) == '/')) {
+                    keys.remove();
+                }
+            }
+        }
+
+        /**
+         * Forgets the cached containers below a path, which happens when the
+         * elements of an array are shifted.
+         */
+        void invalidateChildren(String path) {
+            if (this.parents.size() <= 1) {
+                return;
+            }
+            Iterator<String> keys = this.parents.keySet().iterator();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (key.length() > path.length() && key.startsWith(path) && key.charAt(path.length()) == '/') {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the inverse of every change so that a failed patch can be
+     * reverted without copying the document up front.
+     */
+    private static final class UndoLog {
+        private static final int PUT = 0;
+        private static final int INSERTED = 1;
+        private static final int REMOVED = 2;
+        private static final int SET = 3;
+        private static final int RESTORE = 4;
+
+        private int size;
+        private int[] kinds = new int[8];
+        private int[] indexes = new int[8];
+        private Object[] containers = new Object[8];
+        private Object[] keys = new Object[8];
+        private Object[] values = new Object[8];
+
+        void put(JSONObject jo, String key, Object previous) {
+            record(PUT, jo, key, -1, previous);
+        }
+
+        void inserted(JSONArray ja, int index) {
+            record(INSERTED, ja, null, index, null);
+        }
+
+        void removed(JSONArray ja, int index, Object previous) {
+            record(REMOVED, ja, null, index, previous);
+        }
+
+        void set(JSONArray ja, int index, Object previous) {
+            record(SET, ja, null, index, previous);
+        }
+
+        void restore(JSONArray ja, Object[] previous) {
+            record(RESTORE, ja, null, -1, previous);
+        }
+
+        private void record(int kind, Object container, String key, int index, Object value) {
+            if (this.size == this.kinds.length) {
+                int capacity = this.size * 2;
+                this.kinds = Arrays.copyOf(this.kinds, capacity);
+                this.indexes = Arrays.copyOf(this.indexes, capacity);
+                this.containers = Arrays.copyOf(this.containers, capacity);
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.values = Arrays.copyOf(this.values, capacity);
+            }
+            this.kinds[this.size] = kind;
+            this.containers[this.size] = container;
+            this.keys[this.size] = key;
+            this.indexes[this.size] = index;
+            this.values[this.size] = value;
+            this.size += 1;
+        }
+
+        void rollback() {
+            for (int i = this.size - 1; i >= 0; i -= 1) {
+                Object container = this.containers[i];
+                Object value = this.values[i];
+                try {
+                    switch (this.kinds[i]) {
+                    case PUT:
+                        JSONObject jo = (JSONObject) container;
+                        if (value == null) {
+                            jo.remove((String) this.keys[i]);
+                        } else {
+                            jo.put((String) this.keys[i], value);
+                        }
+                        break;
+                    case INSERTED:
+                        ((JSONArray) container).remove(this.indexes[i]);
+                        break;
+                    case REMOVED:
+                        ((JSONArray) container).insert(this.indexes[i], value);
+                        break;
+                    case SET:
+                        ((JSONArray) container).put(this.indexes[i], value);
+                        break;
+                    case RESTORE:
+                        writeBack((JSONArray) container, (Object[]) value);
+                        break;
+                    default:
+                        throw new IllegalStateException();
+                    }
+                } catch (JSONException ignore) {
+                    // the previous values were valid when they were removed
+                }
+            }
+            this.size = 0;
+        }
+    }
+
+    /**
+     * A gap buffer over the elements of an array. Edits move the gap to the
+     * edited position, so consecutive edits close to each other are cheap.
+     */
+    private static final class GapBuffer {
+        private Object[] buffer;
+        private int gapStart;
+        private int gapEnd;
+
+        GapBuffer(JSONArray ja) {
+            int length = ja.length();
+            this.buffer = new Object[length + Math.max(16, length >> 2)];
+            for (int i = 0; i < length; i += 1) {
+                this.buffer[i] = ja.opt(i);
+            }
+            this.gapStart = length;
+            this.gapEnd = this.buffer.length;
+        }
+
+        int size() {
+            return this.buffer.length - (this.gapEnd - this.gapStart);
+        }
+
+        Object get(int index) {
+            return this.buffer[index < this.gapStart ? index : index + this.gapEnd - this.gapStart];
+        }
+
+        void set(int index, Object value) {
+            this.buffer[index < this.gapStart ? index : index + this.gapEnd - this.gapStart] = value;
+        }
+
+        void insert(int index, Object value) {
+            if (this.gapStart == this.gapEnd) {
+                grow();
+            }
+            moveGap(index);
+            this.buffer[this.gapStart] = value;
+            this.gapStart += 1;
+        }
+
+        void remove(int index) {
+            moveGap(index);
+            this.buffer[this.gapEnd] = null;
+            this.gapEnd += 1;
+        }
+
+        private void moveGap(int index) {
+            if (index < this.gapStart) {
+                int count = this.gapStart - index;
+                System.arraycopy(this.buffer, index, this.buffer, this.gapEnd - count, count);
+                this.gapStart -= count;
+                this.gapEnd -= count;
+            } else if (index > this.gapStart) {
+                int count = index - this.gapStart;
+                System.arraycopy(this.buffer, this.gapEnd, this.buffer, this.gapStart, count);
+                this.gapStart += count;
+                this.gapEnd += count;
+            }
+        }
+
+        private void grow() {
+            int tail = this.buffer.length - this.gapEnd;
+            Object[] grown = new Object[this.buffer.length * 2 + 16];
+            System.arraycopy(this.buffer, 0, grown, 0, this.gapStart);
+            System.arraycopy(this.buffer, this.gapEnd, grown, grown.length - tail, tail);
+            this.gapEnd = grown.length - tail;
+            this.buffer = grown;
+        }
+
+        Object[] toArray() {
+            Object[] values = new Object[size()];
+            System.arraycopy(this.buffer, 0, values, 0, this.gapStart);
+            System.arraycopy(this.buffer, this.gapEnd, values, this.gapStart, this.buffer.length - this.gapEnd);
+            return values;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.json.internal;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 
 import org.json.JSONObject;
 import org.json.exceptions.JSONException;
@@ -54,6 +56,13 @@ SOFTWARE.
  * There are no methods for adding commas or colons. JSONWriter adds them for
  * you. Objects and arrays can be nested up to 200 levels deep.
  * <p>
+ * By default a JSONWriter rejects duplicate keys within an object. The keys
+ * of each open object are tracked in a small set that is reused from one
+ * object to the next at the same depth; callers that already guarantee
+ * unique keys can turn the check off entirely with
+ * {@link #JSONWriter(Appendable, boolean)}. Numbers, booleans and nulls are
+ * written directly to the output without intermediate strings.
+ * <p>
  * This can sometimes be easier than using a JSONObject to build a string.
  * @author JSON.org
  * @version 2016-08-08
@@ -61,6 +70,12 @@ SOFTWARE.
 public class JSONWriter {
     private static final int maxdepth = 200;
 
+    private static final char[] NULL = "null".toCharArray();
+    private static final char[] TRUE = "true".toCharArray();
+    private static final char[] FALSE = "false".toCharArray();
+    private static final char[] LEFT_BRACKET = { '[' };
+    private static final char[] LEFT_BRACE = { '{' };
+
     /**
      * The comma flag determines if a comma should be output before the next
      * value.
@@ -78,15 +93,27 @@ public class JSONWriter {
     protected char mode;
 
     /**
-     * The object/array stack.
+     * The object/array stack: 'a' for an array scope, 'k' for an object
+     * scope.
      */
-    private final JSONObject stack[];
+    private final char stack[];
+
+    /**
+     * The keys written so far in each open object, when duplicate keys are
+     * checked. The sets are created on demand and reused.
+     */
+    private final KeySet keys[];
 
     /**
      * The stack top index. A value of 0 indicates that the stack is empty.
      */
     private int top;
 
+    /**
+     * Scratch space for formatting numbers.
+     */
+    private final char buffer[] = new char[20];
+
     /**
      * The writer that will receive the output.
      */
@@ -96,9 +123,20 @@ public class JSONWriter {
      * Make a fresh JSONWriter. It can be used to build one JSON text.
      */
     public JSONWriter(Appendable w) {
+        this(w, true);
+    }
+
+    /**
+     * Make a fresh JSONWriter. It can be used to build one JSON text.
+     * @param w The writer that will receive the output.
+     * @param checkKeys Whether to reject duplicate keys within an object.
+     *  When false, the caller is responsible for writing unique keys.
+     */
+    public JSONWriter(Appendable w, boolean checkKeys) {
         this.comma = false;
         this.mode = 'i';
-        this.stack = new JSONObject[maxdepth];
+        this.stack = new char[maxdepth];
+        this.keys = checkKeys ? new KeySet[maxdepth] : null;
         this.top = 0;
         this.writer = w;
     }
@@ -113,22 +151,60 @@ public class JSONWriter {
         if (string == null) {
             throw new JSONException("Null pointer");
         }
-        if (this.mode == 'o' || this.mode == 'a') {
+        this.beginValue();
+        try {
+            this.write(string);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this.endValue();
+    }
+
+    /**
+     * Append a value held in a character array.
+     * @param chars The characters of the value.
+     * @param length The number of characters to write.
+     * @return this
+     * @throws JSONException If the value is out of sequence.
+     */
+    private JSONWriter append(char[] chars, int length) throws JSONException {
+        this.beginValue();
+        try {
+            this.write(chars, length);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this.endValue();
+    }
+
+    /**
+     * Check that a value may be written here, and write the comma that
+     * separates it from the previous array element.
+     * @throws JSONException If the value is out of sequence.
+     */
+    private void beginValue() throws JSONException {
+        if (this.mode != 'o' && this.mode != 'a') {
+            throw new JSONException("Value out of sequence.");
+        }
+        if (this.comma && this.mode == 'a') {
             try {
-                if (this.comma && this.mode == 'a') {
-                    this.writer.append(',');
-                }
-                this.writer.append(string);
+                this.write(',');
             } catch (IOException e) {
                 throw new JSONException(e);
             }
-            if (this.mode == 'o') {
-                this.mode = 'k';
-            }
-            this.comma = true;
-            return this;
         }
-        throw new JSONException("Value out of sequence.");
+    }
+
+    /**
+     * Update the state after a value has been written.
+     * @return this
+     */
+    private JSONWriter endValue() {
+        if (this.mode == 'o') {
+            this.mode = 'k';
+        }
+        this.comma = true;
+        return this;
     }
 
     /**
@@ -142,8 +218,8 @@ public class JSONWriter {
      */
     public JSONWriter array() throws JSONException {
         if (this.mode == 'i' || this.mode == 'o' || this.mode == 'a') {
-            this.push(null);
-            this.append("[");
+            this.push('a');
+            this.append(LEFT_BRACKET, 1);
             this.comma = false;
             return this;
         }
@@ -165,7 +241,7 @@ public class JSONWriter {
         }
         this.pop(mode);
         try {
-            this.writer.append(c);
+            this.write(c);
         } catch (IOException e) {
             throw new JSONException(e);
         }
@@ -207,12 +283,14 @@ public class JSONWriter {
         }
         if (this.mode == 'k') {
             try {
-                this.stack[this.top - 1].putOnce(string, Boolean.TRUE);
+                if (this.keys != null && !this.keys[this.top - 1].add(string)) {
+                    throw new JSONException("Duplicate key \"" + string + "\"");
+                }
                 if (this.comma) {
-                    this.writer.append(',');
+                    this.write(',');
                 }
-                this.writer.append(JSONObject.quote(string));
-                this.writer.append(':');
+                this.writeQuoted(string);
+                this.write(':');
                 this.comma = false;
                 this.mode = 'o';
                 return this;
@@ -238,8 +316,8 @@ public class JSONWriter {
             this.mode = 'o';
         }
         if (this.mode == 'o' || this.mode == 'a') {
-            this.append("{");
-            this.push(new JSONObject());
+            this.append(LEFT_BRACE, 1);
+            this.push('k');
             this.comma = false;
             return this;
         }
@@ -257,29 +335,35 @@ public class JSONWriter {
         if (this.top <= 0) {
             throw new JSONException("Nesting error.");
         }
-        char m = this.stack[this.top - 1] == null ? 'a' : 'k';
+        char m = this.stack[this.top - 1];
         if (m != c) {
             throw new JSONException("Nesting error.");
         }
         this.top -= 1;
         this.mode = this.top == 0
             ? 'd'
-            : this.stack[this.top - 1] == null
-            ? 'a'
-            : 'k';
+            : this.stack[this.top - 1];
     }
 
     /**
      * Push an array or object scope.
-     * @param jo The scope to open.
+     * @param c The scope to open, 'a' or 'k'.
      * @throws JSONException If nesting is too deep.
      */
-    private void push(JSONObject jo) throws JSONException {
+    private void push(char c) throws JSONException {
         if (this.top >= maxdepth) {
             throw new JSONException("Nesting too deep.");
         }
-        this.stack[this.top] = jo;
-        this.mode = jo == null ? 'a' : 'k';
+        this.stack[this.top] = c;
+        if (c == 'k' && this.keys != null) {
+            KeySet set = this.keys[this.top];
+            if (set == null) {
+                this.keys[this.top] = new KeySet();
+            } else {
+                set.clear();
+            }
+        }
+        this.mode = c;
         this.top += 1;
     }
 
@@ -292,17 +376,31 @@ public class JSONWriter {
      * @throws JSONException
      */
     public JSONWriter value(boolean b) throws JSONException {
-        return this.append(b ? "true" : "false");
+        return b ? this.append(TRUE, 4) : this.append(FALSE, 5);
     }
 
     /**
-     * Append a double value.
+     * Append a double value. The number is written the way
+     * {@link JSONObject#numberToString} formats it.
      * @param d A double.
      * @return this
      * @throws JSONException If the number is not finite.
      */
     public JSONWriter value(double d) throws JSONException {
-        return this.value(new Double(d));
+        if (Double.isInfinite(d) || Double.isNaN(d)) {
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        }
+        // Double.toString uses plain notation in this range, and the
+        // trailing ".0" of integral values is shaved off
+        if (d == (long) d && d > -1e7 && d < 1e7) {
+            if (d == 0 && 1 / d < 0) {
+                this.buffer[0] = '-';
+                this.buffer[1] = '0';
+                return this.append(this.buffer, 2);
+            }
+            return this.value((long) d);
+        }
+        return this.append(Double.toString(d));
     }
 
     /**
@@ -312,7 +410,27 @@ public class JSONWriter {
      * @throws JSONException
      */
     public JSONWriter value(long l) throws JSONException {
-        return this.append(Long.toString(l));
+        if (l == Long.MIN_VALUE) {
+            return this.append(Long.toString(l));
+        }
+        char[] chars = this.buffer;
+        boolean negative = l < 0;
+        if (negative) {
+            l = -l;
+        }
+        int position = chars.length;
+        do {
+            chars[--position] = (char) ('0' + (int) (l % 10));
+            l /= 10;
+        } while (l != 0);
+        if (negative) {
+            chars[--position] = '-';
+        }
+        int length = chars.length - position;
+        if (position > 0) {
+            System.arraycopy(chars, position, chars, 0, length);
+        }
+        return this.append(chars, length);
     }
 
 
@@ -324,6 +442,135 @@ public class JSONWriter {
      * @throws JSONException If the value is out of sequence.
      */
     public JSONWriter value(Object object) throws JSONException {
+        if (object instanceof String) {
+            this.beginValue();
+            try {
+                this.writeQuoted((String) object);
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+            return this.endValue();
+        }
+        if (object instanceof Integer || object instanceof Long
+                || object instanceof Short || object instanceof Byte) {
+            return this.value(((Number) object).longValue());
+        }
+        if (object instanceof Double) {
+            return this.value(((Double) object).doubleValue());
+        }
+        if (object instanceof Boolean) {
+            return this.value(((Boolean) object).booleanValue());
+        }
+        if (object == null || JSONObject.NULL.equals(object)) {
+            return this.append(NULL, 4);
+        }
         return this.append(JSONObject.valueToString(object));
     }
+
+    /**
+     * Write a single character to the output.
+     * @param c The character.
+     * @throws IOException If the output fails.
+     */
+    protected void write(char c) throws IOException {
+        this.writer.append(c);
+    }
+
+    /**
+     * Write a string to the output, as is.
+     * @param string The string.
+     * @throws IOException If the output fails.
+     */
+    protected void write(String string) throws IOException {
+        this.writer.append(string);
+    }
+
+    /**
+     * Write the leading characters of an array to the output, as is. The
+     * array may be reused as soon as this method returns.
+     * @param chars The characters.
+     * @param length The number of characters to write.
+     * @throws IOException If the output fails.
+     */
+    protected void write(char[] chars, int length) throws IOException {
+        if (this.writer instanceof Writer) {
+            ((Writer) this.writer).write(chars, 0, length);
+        } else if (this.writer instanceof StringBuilder) {
+            ((StringBuilder) this.writer).append(chars, 0, length);
+        } else {
+            for (int i = 0; i < length; i += 1) {
+                this.writer.append(chars[i]);
+            }
+        }
+    }
+
+    /**
+     * Write a string to the output as a quoted and escaped JSON string.
+     * @param string The string.
+     * @throws IOException If the output fails.
+     */
+    protected void writeQuoted(String string) throws IOException {
+        if (this.writer instanceof Writer) {
+            JSONObject.quote(string, (Writer) this.writer);
+        } else {
+            this.writer.append(JSONObject.quote(string));
+        }
+    }
+
+    /**
+     * A set of the keys written in one object. Clearing it keeps its table,
+     * so a set can be reused for the next object at the same depth.
+     */
+    private static final class KeySet {
+        private String[] table = new String[16];
+        private int size;
+
+        /**
+         * Add a key.
+         * @param key The key.
+         * @return false if the key was already present.
+         */
+        boolean add(String key) {
+            int mask = this.table.length - 1;
+            int i = key.hashCode() & mask;
+            String current;
+            while ((current = this.table[i]) != null) {
+                if (current.equals(key)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            this.table[i] = key;
+            this.size += 1;
+            if (this.size * 2 > this.table.length) {
+                this.rehash();
+            }
+            return true;
+        }
+
+        void clear() {
+            if (this.table.length > 256) {
+                this.table = new String[16];
+                this.size = 0;
+            } else if (this.size > 0) {
+                Arrays.fill(this.table, null);
+                this.size = 0;
+            }
+        }
+
+        private void rehash() {
+            String[] old = this.table;
+            this.table = new String[old.length * 2];
+            int mask = this.table.length - 1;
+            for (String key : old) {
+                if (key != null) {
+                    int i = key.hashCode() & mask;
+                    while (this.table[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    this.table[i] = key;
+                }
+            }
+        }
+    }
 }
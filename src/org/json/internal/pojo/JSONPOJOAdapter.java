@@ -0,0 +1,16 @@
+package org.json.internal.pojo;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+// Marks a class for the annotation processor in processor/src, which generates a JSONPOJOClassAdapter for it
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JSONPOJOAdapter
+{
+}
@@ -0,0 +1,76 @@
+package org.json.internal.pojo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+
+// The JSONPOJOClassAdapter providers on the class path, by adapted class. They are looked up once, through the
+// class loader of this library and the context class loader of the thread that first asks. A provider that
+// cannot be loaded is left out, and its class read and written through reflection as before.
+final class JSONPOJOAdapters
+{
+    private static final Map<Class, JSONPOJOClassAdapter> adapters = load();
+
+    private JSONPOJOAdapters() {}
+
+    // The adapter of exactly class c, or null
+    static JSONPOJOClassAdapter forClass(Class c)
+    {
+        return adapters.isEmpty() ? null : adapters.get(c);
+    }
+
+    private static Map<Class, JSONPOJOClassAdapter> load()
+    {
+        final Map<Class, JSONPOJOClassAdapter> found = new HashMap<Class, JSONPOJOClassAdapter>();
+        final ClassLoader own = JSONPOJOClassAdapter.class.getClassLoader();
+        final ClassLoader context = Thread.currentThread().getContextClassLoader();
+        load(own, found);
+        if (context != null && context != own)
+        {
+            load(context, found);
+        }
+        return found.isEmpty() ? Collections.<Class, JSONPOJOClassAdapter>emptyMap() : found;
+    }
+
+    private static void load(ClassLoader loader, Map<Class, JSONPOJOClassAdapter> found)
+    {
+        final Iterator<JSONPOJOClassAdapter> i;
+        try
+        {
+            i = ServiceLoader.load(JSONPOJOClassAdapter.class, loader).iterator();
+        }
+        catch (ServiceConfigurationError e)
+        {
+            return;
+        }
+        while (true)
+        {
+            try
+            {
+                if (!i.hasNext())
+                {
+                    return;
+                }
+            }
+            catch (ServiceConfigurationError e)
+            {   // Unreadable configuration file: no telling where the next provider is
+                return;
+            }
+            try
+            {
+                final JSONPOJOClassAdapter adapter = i.next();
+                if (!found.containsKey(adapter.getAdaptedClass()))
+                {
+                    found.put(adapter.getAdaptedClass(), adapter);
+                }
+            }
+            catch (ServiceConfigurationError ignored)
+            {   // Provider class missing or failing to load: skip it
+            }
+        }
+    }
+}
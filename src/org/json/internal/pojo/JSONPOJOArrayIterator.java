@@ -0,0 +1,182 @@
+package org.json.internal.pojo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+// Reads the elements of a root JSON array one at a time, or of the @items of a root object such as the writer
+// makes of a typed array or a collection. Each element is bound and resolved on its own, so only the element
+// being read is held in memory, besides the objects given an @id, which later elements may refer back to.
+// An @ref to an object of a later element cannot be resolved.
+final class JSONPOJOArrayIterator<T> implements Iterator<T>, Closeable
+{
+    private static final int NONE = -2;
+
+    private final JSONPOJOReader reader;
+    private final JSONPOJOParser parser;
+    private final JSONPOJOFastPushbackReader input;
+    private final JSONPOJOStreamBinder binder;
+    private final Class<T> type;
+    private boolean started = false;
+    private boolean done = false;
+    private boolean wrapped = false;  // The array is the @items of a root object, whose '}' follows its ']'
+    private int pending = NONE;   // First char of the next element, once read
+
+    JSONPOJOArrayIterator(JSONPOJOReader reader, JSONPOJOFastPushbackReader input, JSONPOJOParser parser, JSONPOJOStreamBinder binder, Class<T> type)
+    {
+        this.reader = reader;
+        this.input = input;
+        this.parser = parser;
+        this.binder = binder;
+        this.type = type;
+    }
+
+    
+    public boolean hasNext()
+    {
+        if (pending == NONE && !done)
+        {
+            advance();
+        }
+        return !done;
+    }
+
+    
+    public T next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        final int c = pending;
+        pending = NONE;
+        try
+        {
+            return (T) binder.readItem(c, type);
+        }
+        catch (Exception e)
+        {
+            done = true;
+            throw reader.readFailure(e);
+        }
+    }
+
+    // Reads up to the first char of the next element, or the closing ']'
+    private void advance()
+    {
+        try
+        {
+            int c = parser.skipWhitespaceRead();
+            if (!started)
+            {
+                started = true;
+                if (c == '{')
+                {
+                    startItems();
+                    c = '[';
+                }
+                if (c != '[')
+                {
+                    parser.error("Expected '[' at the start of the input, to iterate over its elements");
+                }
+                c = parser.skipWhitespaceRead();
+            }
+            else if (c == ',')
+            {
+                c = parser.skipWhitespaceRead();
+            }
+            else if (c != ']')
+            {
+                parser.error(c == -1 ? "EOF reached before closing ']'" : "Expected ',' or ']' inside array");
+            }
+
+            if (c == ']')
+            {
+                if (wrapped && parser.skipWhitespaceRead() != '}')
+                {
+                    parser.error("Expected '}' after the @items of the root object");
+                }
+                done = true;
+                close();
+            }
+            else if (c == -1)
+            {
+                parser.error("EOF reached before closing ']'");
+            }
+            else
+            {
+                pending = c;
+            }
+        }
+        catch (Exception e)
+        {
+            done = true;
+            throw reader.readFailure(e);
+        }
+    }
+
+    // Reads the meta keys of a root object up to the '[' of its @items
+    private void startItems() throws IOException
+    {
+        final JSONPOJOElement<String, Object> root = new JSONPOJOElement<String, Object>();
+        while (true)
+        {
+            final int c = parser.skipWhitespaceRead();
+            if (c != '"')
+            {
+                parser.error("Expected @items in the root object, to iterate over its elements");
+            }
+            input.unread(c);
+            final String field = parser.readField();
+            if ("@items".equals(field))
+            {
+                if (parser.skipWhitespaceRead() != '[')
+                {
+                    parser.error("Expected '[' after @items of the root object");
+                }
+                wrapped = true;
+                return;
+            }
+            if (!"@type".equals(field) && !"@id".equals(field))
+            {
+                parser.error("Expected @items in the root object, to iterate over its elements, found: " + field);
+            }
+            root.put(field, parser.readValue(root));
+            if (parser.skipWhitespaceRead() != ',')
+            {
+                parser.error("Expected @items in the root object, to iterate over its elements");
+            }
+        }
+    }
+
+    
+    public void remove()
+    {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    
+    public void close()
+    {
+        done = true;
+        reader.close();
+    }
+
+    
+    Stream<T> stream()
+    {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(new Runnable()
+        {
+            public void run()
+            {
+                close();
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package org.json.internal.pojo;
+
+import java.io.IOException;
+
+
+// Reads and writes the fields of one class without reflection. Implementations are generated for classes
+// annotated with @JSONPOJOAdapter and found through ServiceLoader. JSONPOJOWriter and JSONPOJOReader use one
+// in place of the class's reflected fields, for instances of exactly that class, while @id, @type, references
+// and custom writers and readers are handled around it as for any other object.
+public interface JSONPOJOClassAdapter<T>
+{
+    
+    Class<T> getAdaptedClass();
+
+    // A new instance, or null when the class has no constructor the adapter can call
+    T newInstance();
+
+    // Writes each field through the writer's writeField() methods, in the order of getDeepDeclaredFields(),
+    // and returns first as left by the last of them
+    boolean writeFields(T obj, boolean first, JSONPOJOWriter writer) throws IOException;
+
+    // Sets the fields of target from jsonObj, handing every value it does not set itself to fields
+    void readFields(JSONPOJOElement<String, Object> jsonObj, T target, Fields fields);
+
+    
+    interface Fields
+    {
+        
+        void assign(String key, Object value);
+    }
+}
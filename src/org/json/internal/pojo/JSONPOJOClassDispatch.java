@@ -0,0 +1,76 @@
+package org.json.internal.pojo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+
+final class JSONPOJOClassDispatch<T>
+{
+    private static final Object NONE = new Object();
+    final Map<Class, T> handlers;
+    // The dispatch these handlers were added over by with(), or null
+    final JSONPOJOClassDispatch<T> base;
+    // Closest handler per class, computed once and shared by every reader / writer using this dispatch.
+    // ClassValue keeps the entries with the classes, so it does not pin their class loaders.
+    private final ClassValue<Object> closest = new ClassValue<Object>()
+    {
+        protected Object computeValue(Class<?> c)
+        {
+            T handler = closest(handlers, c);
+            return handler == null ? NONE : handler;
+        }
+    };
+
+    
+    JSONPOJOClassDispatch(Map<Class, T> handlers)
+    {
+        this(handlers, null);
+    }
+
+    
+    private JSONPOJOClassDispatch(Map<Class, T> handlers, JSONPOJOClassDispatch<T> base)
+    {
+        this.handlers = handlers;
+        this.base = base;
+    }
+
+    
+    // The dispatch of these handlers with those of a config added over them
+    JSONPOJOClassDispatch<T> with(Map<Class, T> added)
+    {
+        final Map<Class, T> all = new HashMap<Class, T>(handlers);
+        all.putAll(added);
+        return new JSONPOJOClassDispatch<T>(Collections.unmodifiableMap(all), this);
+    }
+
+    
+    T get(Class c)
+    {
+        Object handler = closest.get(c);
+        return handler == NONE ? null : (T) handler;
+    }
+
+    
+    static <T> T closest(Map<Class, T> handlers, Class c)
+    {
+        T closest = null;
+        int minDistance = Integer.MAX_VALUE;
+
+        for (Map.Entry<Class, T> entry : handlers.entrySet())
+        {
+            Class clz = entry.getKey();
+            if (clz == c)
+            {
+                return entry.getValue();
+            }
+            int distance = JSONPOJOMetaUtils.getDistance(clz, c);
+            if (distance < minDistance)
+            {
+                minDistance = distance;
+                closest = entry.getValue();
+            }
+        }
+        return closest;
+    }
+}
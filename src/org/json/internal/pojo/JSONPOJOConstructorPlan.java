@@ -0,0 +1,165 @@
+package org.json.internal.pojo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+
+// How to build an object whose fields are set by its constructor rather than after it: a record through its
+// canonical constructor, or a class of final fields only, without a no-argument constructor, through the
+// constructor taking all of them in declaration order, provided it was compiled with its parameter names and
+// they are the names of the fields. The values are collected in parameter order and passed in one call of a
+// spreading MethodHandle.
+final class JSONPOJOConstructorPlan
+{
+    private static final ClassValue<JSONPOJOConstructorPlan> plans = new ClassValue<JSONPOJOConstructorPlan>()
+    {
+        protected JSONPOJOConstructorPlan computeValue(Class<?> c)
+        {
+            return create(c);
+        }
+    };
+
+    private final JSONPOJOReadPlan readPlan;
+    // Field slot of each parameter, and the parameter of each field slot (or -1)
+    final JSONPOJOReadPlan.FieldSlot[] params;
+    private final int[] paramOfSlot;
+    private final Object[] defaults;
+    private final MethodHandle constructor;
+
+    private JSONPOJOConstructorPlan(JSONPOJOReadPlan readPlan, JSONPOJOReadPlan.FieldSlot[] params, MethodHandle constructor)
+    {
+        this.readPlan = readPlan;
+        this.params = params;
+        this.paramOfSlot = new int[readPlan.slots.length];
+        Arrays.fill(paramOfSlot, -1);
+        this.defaults = new Object[params.length];
+        for (int i = 0; i < params.length; i++)
+        {
+            paramOfSlot[params[i].index] = i;
+            final Class type = params[i].type;
+            defaults[i] = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+        this.constructor = constructor;
+    }
+
+    // The plan of class c, or null when c is built empty and has its fields set
+    static JSONPOJOConstructorPlan forClass(Class c)
+    {
+        return plans.get(c);
+    }
+
+    private static JSONPOJOConstructorPlan create(Class c)
+    {
+        if (c.isInterface() || c.isArray() || c.isPrimitive() || Modifier.isAbstract(c.getModifiers()) ||
+                JSONPOJOMetaUtils.isLogicalPrimitive(c) || Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c))
+        {
+            return null;
+        }
+        final JSONPOJOReadPlan plan = JSONPOJOReadPlan.forClass(c);
+        final JSONPOJOReadPlan.FieldSlot[] params;
+        final Class[] types;
+        if (c.isRecord())
+        {
+            final RecordComponent[] components = c.getRecordComponents();
+            params = new JSONPOJOReadPlan.FieldSlot[components.length];
+            types = new Class[components.length];
+            for (int i = 0; i < components.length; i++)
+            {
+                params[i] = plan.slot(components[i].getName());
+                types[i] = components[i].getType();
+                if (params[i] == null)
+                {
+                    return null;
+                }
+            }
+        }
+        else
+        {
+            if (c.getSuperclass() != Object.class || plan.slots.length == 0 || hasNoArgConstructor(c))
+            {
+                return null;
+            }
+            params = plan.slots;
+            types = new Class[params.length];
+            for (int i = 0; i < params.length; i++)
+            {
+                if (!Modifier.isFinal(params[i].field.getModifiers()))
+                {
+                    return null;
+                }
+                types[i] = params[i].type;
+            }
+        }
+
+        try
+        {
+            final Constructor ctor = c.getDeclaredConstructor(types);
+            if (!c.isRecord() && !namesMatch(ctor, params))
+            {   // Types alone do not tell which field a parameter sets
+                return null;
+            }
+            ctor.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(ctor);
+            handle = handle.asSpreader(Object[].class, types.length).asType(MethodType.methodType(Object.class, Object[].class));
+            return new JSONPOJOConstructorPlan(plan, params, handle);
+        }
+        catch (Exception e)
+        {   // No such constructor, or not accessible: build it empty as for any other class
+            return null;
+        }
+    }
+
+    // Whether the parameters of ctor were compiled with their names (javac -parameters), and these are the names
+    // of the fields they stand for
+    private static boolean namesMatch(Constructor ctor, JSONPOJOReadPlan.FieldSlot[] params)
+    {
+        final Parameter[] parameters = ctor.getParameters();
+        for (int i = 0; i < parameters.length; i++)
+        {
+            if (!parameters[i].isNamePresent() || !parameters[i].getName().equals(params[i].field.getName()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasNoArgConstructor(Class c)
+    {
+        for (Constructor ctor : c.getDeclaredConstructors())
+        {
+            if (ctor.getParameterCount() == 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Parameter of the field named key, or -1 when it is no parameter
+    int param(String key)
+    {
+        final JSONPOJOReadPlan.FieldSlot slot = readPlan.slot(key);
+        return slot == null ? -1 : paramOfSlot[slot.index];
+    }
+
+    // Arguments that are all zero or null, for the parameters missing from the JSON
+    Object[] arguments()
+    {
+        return defaults.clone();
+    }
+
+    Object newInstance(Object[] args) throws Throwable
+    {
+        return (Object) constructor.invokeExact(args);
+    }
+}
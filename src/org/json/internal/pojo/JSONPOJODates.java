@@ -0,0 +1,216 @@
+package org.json.internal.pojo;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+
+// Date parsing and formatting without regular expressions or SimpleDateFormat for the forms this library
+// writes itself: ISO-8601 dates, optionally with a time, 3 digit millis and a zone offset. Each is recognized in
+// one scan and computed from the parsed ints. Anything else returns null (or, for the Calendar format, goes to
+// a SimpleDateFormat) so the caller can take the general path. Only years 1583 to 9999 are handled here: before
+// that Calendar switches to the Julian calendar, and beyond it the formats differ in padding.
+final class JSONPOJODates
+{
+    static final String CALENDAR_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    private static final int MIN_YEAR = 1583;
+    private static final int MAX_YEAR = 9999;
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private JSONPOJODates() {}
+
+    // The date of an ISO-8601 string such as 2024-01-02, 2024-01-02T03:04, 2024-01-02 03:04:05 or
+    // 2024-01-02T03:04:05.678+01:00, as DateReader.parseDate() reads it, or null when not in such a form
+    static Date parseIso(String s)
+    {
+        final int len = s.length();
+        if (len < 10 || s.charAt(4) != '-' || s.charAt(7) != '-')
+        {
+            return null;
+        }
+        final int year = digits(s, 0, 4);
+        final int month = digits(s, 5, 2);
+        final int day = digits(s, 8, 2);
+        if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > 31)
+        {
+            return null;
+        }
+        if (len == 10)
+        {
+            final Calendar c = Calendar.getInstance();
+            c.clear();
+            c.set(year, month - 1, day);
+            return c.getTime();
+        }
+
+        final char sep = s.charAt(10);
+        if ((sep != 'T' && sep != ' ') || len < 16 || s.charAt(13) != ':')
+        {
+            return null;
+        }
+        final int hour = digits(s, 11, 2);
+        final int min = digits(s, 14, 2);
+        int sec = 0;
+        int milli = 0;
+        int i = 16;
+        if (i < len && s.charAt(i) == ':')
+        {
+            sec = digits(s, 17, 2);
+            i = 19;
+            if (i < len && s.charAt(i) == '.')
+            {   // Exactly 3 digits: DateReader takes other lengths as a count of millis, which the regex path keeps doing
+                if (i + 4 < len && Character.isDigit(s.charAt(i + 4)))
+                {
+                    return null;
+                }
+                milli = digits(s, 20, 3);
+                i = 23;
+            }
+        }
+        if (hour < 0 || hour > 23 || min < 0 || min > 59 || sec < 0 || sec > 59 || milli < 0)
+        {
+            return null;
+        }
+
+        if (i == len)
+        {   // No zone: local time, as Calendar resolves it
+            final Calendar c = Calendar.getInstance();
+            c.clear();
+            c.set(year, month - 1, day, hour, min, sec);
+            c.set(Calendar.MILLISECOND, milli);
+            return c.getTime();
+        }
+        final int offset = offsetMillis(s, i);
+        if (offset == Integer.MIN_VALUE)
+        {
+            return null;
+        }
+        return new Date(utcMillis(year, month, day, hour, min, sec, milli) - offset);
+    }
+
+    // Millis of a zone suffix starting at i: Z, +hh:mm or +hhmm, or Integer.MIN_VALUE when it is none of these
+    private static int offsetMillis(String s, int i)
+    {
+        final int len = s.length();
+        final char sign = s.charAt(i);
+        if (sign == 'Z')
+        {
+            return i + 1 == len ? 0 : Integer.MIN_VALUE;
+        }
+        if (sign != '+' && sign != '-')
+        {
+            return Integer.MIN_VALUE;
+        }
+        int minAt = i + 3;
+        if (minAt < len && s.charAt(minAt) == ':')
+        {
+            minAt++;
+        }
+        if (minAt + 2 != len)
+        {
+            return Integer.MIN_VALUE;
+        }
+        final int hours = digits(s, i + 1, 2);
+        final int mins = digits(s, minAt, 2);
+        if (hours < 0 || hours > 23 || mins < 0 || mins > 59)
+        {
+            return Integer.MIN_VALUE;
+        }
+        final int offset = (hours * 60 + mins) * 60000;
+        return sign == '-' ? -offset : offset;
+    }
+
+    // The int value of count digits at i, or -1 when not all digits
+    private static int digits(String s, int i, int count)
+    {
+        if (i + count > s.length())
+        {
+            return -1;
+        }
+        int value = 0;
+        for (int end = i + count; i < end; i++)
+        {
+            final int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9)
+            {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    // Epoch millis of a Gregorian date and time in UTC. Days past the end of the month carry over, as they do
+    // with a lenient Calendar.
+    private static long utcMillis(int year, int month, int day, int hour, int min, int sec, int milli)
+    {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = y / 400;
+        final int yoe = y - era * 400;
+        final int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        final long epochDay = era * 146097L + doe - 719468;
+        return epochDay * MILLIS_PER_DAY + ((hour * 60 + min) * 60 + sec) * 1000L + milli;
+    }
+
+    // Parses the time of a Calendar as CalendarWriter writes it
+    static Date parseCalendarTime(String time) throws ParseException
+    {
+        final Date date = parseIso(time);
+        return date != null ? date : new SimpleDateFormat(CALENDAR_FORMAT).parse(time);
+    }
+
+    // Appends millis in zone as CALENDAR_FORMAT formats them
+    static void formatCalendarTime(long millis, TimeZone zone, StringBuilder s)
+    {
+        final int offset = zone.getOffset(millis);
+        final long local = millis + offset;
+        long epochDay = Math.floorDiv(local, MILLIS_PER_DAY);
+        final int millisOfDay = (int) Math.floorMod(local, MILLIS_PER_DAY);
+
+        // Civil date of epochDay
+        epochDay += 719468;
+        final long era = Math.floorDiv(epochDay, 146097);
+        final int doe = (int) (epochDay - era * 146097);
+        final int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        final int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final int mp = (5 * doy + 2) / 153;
+        final int day = doy - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < MIN_YEAR || year > MAX_YEAR)
+        {
+            final SimpleDateFormat format = new SimpleDateFormat(CALENDAR_FORMAT);
+            format.setTimeZone(zone);
+            s.append(format.format(new Date(millis)));
+            return;
+        }
+        pad(s, (int) year, 4).append('-');
+        pad(s, month, 2).append('-');
+        pad(s, day, 2).append('T');
+        pad(s, millisOfDay / 3600000, 2).append(':');
+        pad(s, millisOfDay / 60000 % 60, 2).append(':');
+        pad(s, millisOfDay / 1000 % 60, 2).append('.');
+        pad(s, millisOfDay % 1000, 3);
+        final int offsetMins = Math.abs(offset) / 60000;
+        s.append(offset < 0 ? '-' : '+');
+        pad(s, offsetMins / 60, 2);
+        pad(s, offsetMins % 60, 2);
+    }
+
+    private static StringBuilder pad(StringBuilder s, int value, int width)
+    {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10)
+        {
+            if (value < limit)
+            {
+                s.append('0');
+            }
+        }
+        return s.append(value);
+    }
+}
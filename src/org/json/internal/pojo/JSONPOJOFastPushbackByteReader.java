@@ -0,0 +1,283 @@
+package org.json.internal.pojo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+
+// Unsynchronized JSONPOJOFastPushbackReader over UTF-8 bytes, from a byte[] as is or from an InputStream through
+// its own buffer. ASCII, which is nearly all of JSON outside of strings, costs one array read per char; other
+// chars are decoded inline. Line and column are not tracked per char but counted up to the read position when
+// asked for, and the snippet for error messages is decoded from the bytes still in the buffer.
+final class JSONPOJOFastPushbackByteReader implements JSONPOJOFastPushbackReader
+{
+    private static final int BUFFER_SIZE = 8192;
+    private static final int SNIPPET_SIZE = 256;    // Chars in the snippet
+    private static final int KEEP_SIZE = 1024;      // Bytes kept in front of the read position when refilling, enough for the snippet
+
+    private final InputStream in;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    private int lastLength = 1;     // Bytes of the last char read, when not ASCII
+
+    // Line and column as of position scanned
+    private int scanned;
+    private int line = 1;
+    private int col = 0;
+    private int pastEnd = 0;        // Reads at the end of input, which count as a column like any other read
+
+    JSONPOJOFastPushbackByteReader(InputStream in)
+    {
+        this.in = in;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    JSONPOJOFastPushbackByteReader(byte[] bytes)
+    {
+        this.in = null;
+        this.buf = bytes;
+        this.limit = bytes.length;
+    }
+
+    public int read() throws IOException
+    {
+        final int p = pos;
+        if (p < limit)
+        {
+            final byte b = buf[p];
+            if (b >= 0)
+            {
+                pos = p + 1;
+                return b;
+            }
+        }
+        return readSlow();
+    }
+
+    private int readSlow() throws IOException
+    {
+        if (pos >= limit && !fill(1))
+        {
+            pastEnd++;
+            return -1;
+        }
+        final int b = buf[pos] & 0xff;
+        if (b < 0x80)
+        {
+            pos++;
+            return b;
+        }
+
+        // Leads C0 and C1 could only start overlong forms of ASCII, and leads past F4 chars past U+10FFFF
+        final int length = b < 0xc2 ? 0 : b < 0xe0 ? 2 : b < 0xf0 ? 3 : b < 0xf5 ? 4 : 0;
+        if (length == 0)
+        {
+            return malformed(1);
+        }
+        if (limit - pos < length)
+        {
+            fill(length);
+        }
+        final int available = Math.min(length, limit - pos);
+        int c = b & (0xff >> (length + 1));
+        for (int i = 1; i < available; i++)
+        {
+            final int next = buf[pos + i] & 0xff;
+            if ((next & 0xc0) != 0x80 || (i == 1 && !validSecond(b, next)))
+            {
+                return malformed(i);
+            }
+            c = (c << 6) | (next & 0x3f);
+        }
+        if (available < length)
+        {   // Cut short by the end of input
+            return malformed(available);
+        }
+        if (c >= 0xd800 && c <= 0xdfff)
+        {   // Surrogates are not chars of their own, and CESU-8 pairs of them are not UTF-8
+            return malformed(length);
+        }
+        pos += length;
+        lastLength = length;
+        return c;
+    }
+
+    // Whether the second byte of a sequence keeps it from being overlong (E0, F0) or past U+10FFFF (F4)
+    private static boolean validSecond(int lead, int second)
+    {
+        if (lead == 0xe0)
+        {
+            return second >= 0xa0;
+        }
+        if (lead == 0xf0)
+        {
+            return second >= 0x90;
+        }
+        if (lead == 0xf4)
+        {
+            return second < 0x90;
+        }
+        return true;
+    }
+
+    // Skips the length bytes of a sequence that is not valid UTF-8, standing in one replacement char for them.
+    // The lengths are those the JDK decoder replaces: the bytes up to the first that cannot continue the
+    // sequence, the whole sequence of a surrogate, or what is left of a sequence cut short by the end of input.
+    private int malformed(int length)
+    {
+        pos += length;
+        lastLength = length;
+        return 0xfffd;
+    }
+
+    // Reads more input, keeping the snippet and any unread bytes, until at least n bytes are there past pos
+    private boolean fill(int n) throws IOException
+    {
+        if (in == null)
+        {
+            return false;
+        }
+        scan();
+        final int keep = Math.max(0, pos - KEEP_SIZE);
+        if (keep > 0)
+        {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            pos -= keep;
+            limit -= keep;
+            scanned -= keep;
+        }
+        while (limit - pos < n)
+        {
+            final int count = in.read(buf, limit, buf.length - limit);
+            if (count < 0)
+            {
+                return false;
+            }
+            limit += count;
+        }
+        return true;
+    }
+
+    // Appends the chars of a JSON string to s, up to a closing quote or a backslash, and returns that char,
+    // or -1 at the end of input. The quote or backslash is consumed.
+    int readStringChars(StringBuilder s) throws IOException
+    {
+        while (true)
+        {
+            final byte[] b = buf;
+            final int end = limit;
+            int p = pos;
+            while (p < end)
+            {
+                final byte c = b[p];
+                if (c == '"' || c == '\\')
+                {
+                    pos = p + 1;
+                    return c;
+                }
+                if (c < 0)
+                {
+                    break;
+                }
+                s.append((char) c);
+                p++;
+            }
+            pos = p;
+            if (p < end)
+            {
+                s.appendCodePoint(readSlow());
+            }
+            else if (!fill(1))
+            {
+                pastEnd++;
+                return -1;
+            }
+        }
+    }
+
+    public void unread(int c) throws IOException
+    {
+        if (c >= 0)
+        {
+            pos -= c < 0x80 ? 1 : lastLength;
+        }
+        else
+        {
+            pastEnd--;
+        }
+    }
+
+    // Brings line and col up to the read position, either way
+    private void scan()
+    {
+        final byte[] b = buf;
+        final int p = pos;
+        int i = scanned;
+        while (i < p)
+        {
+            final byte c = b[i++];
+            if (c == '\n')
+            {
+                line++;
+                col = 0;
+            }
+            else if ((c & 0xc0) != 0x80)
+            {
+                col += (c & 0xf8) == 0xf0 ? 2 : 1;  // as many chars as a UTF-16 reader would count
+            }
+        }
+        while (i > p)
+        {
+            final byte c = b[--i];
+            if (c == '\n')
+            {
+                line--;
+            }
+            else if ((c & 0xc0) != 0x80)
+            {
+                col -= (c & 0xf8) == 0xf0 ? 2 : 1;
+            }
+        }
+        scanned = p;
+    }
+
+    public int getLine()
+    {
+        scan();
+        return line;
+    }
+
+    public int getCol()
+    {
+        scan();
+        return col + pastEnd;
+    }
+
+    public String getLastSnippet()
+    {
+        int start = pos;
+        int chars = 0;
+        while (start > 0 && chars < SNIPPET_SIZE)
+        {
+            final byte c = buf[--start];
+            if ((c & 0xc0) != 0x80)
+            {
+                chars += (c & 0xf8) == 0xf0 ? 2 : 1;
+            }
+        }
+        while (start < pos && (buf[start] & 0xc0) == 0x80)
+        {
+            start++;
+        }
+        return new String(buf, start, pos - start, StandardCharsets.UTF_8);
+    }
+
+    public void close() throws IOException
+    {
+        if (in != null)
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.json.internal.pojo;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+// Open addressing map from object identity to a primitive long, the writer's bookkeeping of visited and
+// referenced objects. Linear probing, at most half full. Entries cannot be removed one by one, only all at
+// once with clear(), which keeps the table so the next write() starts out presized.
+final class JSONPOJOIdentityLongMap extends AbstractMap<Object, Long>
+{
+    static final long ABSENT = Long.MIN_VALUE;    // returned by getLong() for a missing key
+    private static final long NULL_VALUE = Long.MIN_VALUE;  // a key mapped to null through the Map API
+
+    private Object[] keys;
+    private long[] values;
+    private int size = 0;
+    private int mask;
+
+    JSONPOJOIdentityLongMap(int expectedSize)
+    {
+        int capacity = 4;
+        while (capacity < expectedSize * 2)
+        {
+            capacity <<= 1;
+        }
+        keys = new Object[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(Object key)
+    {
+        final int h = System.identityHashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(Object key)
+    {
+        final Object[] k = keys;
+        int i = hash(key) & mask;
+        Object present;
+        while ((present = k[i]) != null && present != key)
+        {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // The value for key, or ABSENT when there is none (a null value reads as ABSENT too)
+    long getLong(Object key)
+    {
+        final int i = slot(key);
+        return keys[i] == null ? ABSENT : values[i];
+    }
+
+
+    void putLong(Object key, long value)
+    {
+        final int i = slot(key);
+        values[i] = value;
+        if (keys[i] == null)
+        {
+            keys[i] = key;
+            if (++size * 2 > keys.length)
+            {
+                resize();
+            }
+        }
+    }
+
+    private void resize()
+    {
+        final Object[] oldKeys = keys;
+        final long[] oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != null)
+            {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public boolean containsKey(Object key)
+    {
+        return key != null && keys[slot(key)] != null;
+    }
+
+    public Long get(Object key)
+    {
+        if (key == null)
+        {
+            return null;
+        }
+        final long value = getLong(key);
+        return value == ABSENT ? null : value;
+    }
+
+    public Long put(Object key, Long value)
+    {
+        if (key == null)
+        {
+            throw new NullPointerException("key");
+        }
+        final Long old = get(key);
+        putLong(key, value == null ? NULL_VALUE : value);
+        return old;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        if (size > 0)
+        {
+            Arrays.fill(keys, null);
+            size = 0;
+        }
+    }
+
+    public Set<Map.Entry<Object, Long>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<Object, Long>>()
+        {
+            public int size()
+            {
+                return size;
+            }
+
+            public Iterator<Map.Entry<Object, Long>> iterator()
+            {
+                return new Iterator<Map.Entry<Object, Long>>()
+                {
+                    private int next = advance(0);
+
+                    private int advance(int i)
+                    {
+                        while (i < keys.length && keys[i] == null)
+                        {
+                            i++;
+                        }
+                        return i;
+                    }
+
+                    public boolean hasNext()
+                    {
+                        return next < keys.length;
+                    }
+
+                    public Map.Entry<Object, Long> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        final long value = values[next];
+                        final Map.Entry<Object, Long> entry = new SimpleImmutableEntry<Object, Long>(keys[next], value == NULL_VALUE ? null : value);
+                        next = advance(next + 1);
+                        return entry;
+                    }
+
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException("remove");
+                    }
+                };
+            }
+        };
+    }
+}
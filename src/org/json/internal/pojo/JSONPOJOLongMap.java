@@ -0,0 +1,186 @@
+package org.json.internal.pojo;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+// Open addressing map from primitive long keys, so ids are neither boxed nor wrapped in entry nodes.
+// Linear probing, at most half full. Entries cannot be removed one by one, only all at once with clear(),
+// which keeps the table for the next use.
+final class JSONPOJOLongMap<V> extends AbstractMap<Long, V>
+{
+    private static final Object NULL_VALUE = new Object();  // stands in for a null value, as null marks a free slot
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int mask;
+
+    JSONPOJOLongMap()
+    {
+        this(16);
+    }
+
+    JSONPOJOLongMap(int expectedSize)
+    {
+        int capacity = 4;
+        while (capacity < expectedSize * 2)
+        {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key)
+    {
+        final long[] k = keys;
+        final Object[] v = values;
+        int i = hash(key) & mask;
+        while (v[i] != null && k[i] != key)
+        {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+
+    V get(long key)
+    {
+        final Object value = values[slot(key)];
+        return value == NULL_VALUE ? null : (V) value;
+    }
+
+
+    boolean containsKey(long key)
+    {
+        return values[slot(key)] != null;
+    }
+
+
+    V put(long key, V value)
+    {
+        int i = slot(key);
+        final Object old = values[i];
+        values[i] = value == null ? NULL_VALUE : value;
+        if (old != null)
+        {
+            return old == NULL_VALUE ? null : (V) old;
+        }
+        keys[i] = key;
+        if (++size * 2 > values.length)
+        {
+            resize();
+        }
+        return null;
+    }
+
+    private void resize()
+    {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; i++)
+        {
+            if (oldValues[i] != null)
+            {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public V get(Object key)
+    {
+        return key instanceof Long ? get(((Long) key).longValue()) : null;
+    }
+
+    public boolean containsKey(Object key)
+    {
+        return key instanceof Long && containsKey(((Long) key).longValue());
+    }
+
+    public V put(Long key, V value)
+    {
+        return put(key.longValue(), value);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        if (size > 0)
+        {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    public Set<Map.Entry<Long, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<Long, V>>()
+        {
+            public int size()
+            {
+                return size;
+            }
+
+            public Iterator<Map.Entry<Long, V>> iterator()
+            {
+                return new Iterator<Map.Entry<Long, V>>()
+                {
+                    private int next = advance(0);
+
+                    private int advance(int i)
+                    {
+                        while (i < values.length && values[i] == null)
+                        {
+                            i++;
+                        }
+                        return i;
+                    }
+
+                    public boolean hasNext()
+                    {
+                        return next < values.length;
+                    }
+
+                    public Map.Entry<Long, V> next()
+                    {
+                        if (!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        final Object value = values[next];
+                        final Map.Entry<Long, V> entry = new SimpleImmutableEntry<Long, V>(keys[next], value == NULL_VALUE ? null : (V) value);
+                        next = advance(next + 1);
+                        return entry;
+                    }
+
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException("remove");
+                    }
+                };
+            }
+        };
+    }
+}
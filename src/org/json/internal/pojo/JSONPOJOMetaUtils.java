@@ -1,17 +1,25 @@
 package org.json.internal.pojo;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -32,8 +40,12 @@ import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,6 +62,14 @@ public class JSONPOJOMetaUtils
     private static final Map<Class, Map<String, Field>> classMetaCache = new ConcurrentHashMap<Class, Map<String, Field>>();
     private static final Set<Class> prims = new HashSet<Class>();
     private static final Map<String, Class> nameToClass = new HashMap<String, Class>();
+    // Per class loader, the names it was asked for. Weakly keyed, so that a class loader let go of, on redeploy,
+    // is not kept alive by it.
+    private static final Map<ClassLoader, LoadedClasses> loadedClasses = Collections.synchronizedMap(new WeakHashMap<ClassLoader, LoadedClasses>());
+    // The entries looked up last, for the given and for the context class loader, which save the lock of
+    // loadedClasses while names come from the same loaders
+    private static volatile LoadedClasses lastLoadedClasses;
+    private static volatile LoadedClasses lastContextClasses;
+    private static final int MAX_FAILED_CLASS_NAMES = 10000;  // Bounds the failures remembered per class loader
     private static final Byte[] byteCache = new Byte[256];
     private static final Character[] charCache = new Character[128];
     private static final Pattern extraQuotes = Pattern.compile("([\"]*)([^\"]*)([\"]*)");
@@ -60,16 +80,9 @@ public class JSONPOJOMetaUtils
     private static final Collection unmodifiableSortedSet = Collections.unmodifiableSortedSet(new TreeSet());
     private static final Map unmodifiableMap = Collections.unmodifiableMap(new HashMap());
     private static final Map unmodifiableSortedMap = Collections.unmodifiableSortedMap(new TreeMap());
-    static final ThreadLocal<SimpleDateFormat> dateFormat = new ThreadLocal<SimpleDateFormat>()
-    {
-        public SimpleDateFormat initialValue()
-        {
-            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
-        }
-    };
     private static boolean useUnsafe = false;
     private static Unsafe unsafe;
-    static Exception loadClassException;
+    private static final ThreadLocal<Exception> loadClassException = new ThreadLocal<Exception>();
 
     
     public static void setUseUnsafe(boolean state)
@@ -189,6 +202,180 @@ public class JSONPOJOMetaUtils
         return classFields;
     }
 
+    // Resolves, ahead of the first read or write, what the library would otherwise look up for each class on
+    // first use: class name, fields, read, write and constructor plans, generated adapter, permanent custom
+    // writer and reader, and constructor. The classes reachable through their fields, and through the type
+    // arguments of those fields, are resolved too. The work is spread over the common ForkJoinPool, and the
+    // call returns once it is done. Classes of the JDK are looked up but not taken apart.
+    public static void prewarm(Collection<Class<?>> classes)
+    {
+        final Set<Class> seen = Collections.newSetFromMap(new ConcurrentHashMap<Class, Boolean>());
+        final List<PrewarmTask> tasks = new ArrayList<PrewarmTask>();
+        for (Class c : classes)
+        {
+            if (c != null && seen.add(c))
+            {
+                tasks.add(new PrewarmTask(c, seen));
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction()
+        {
+            protected void compute()
+            {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    
+    // Writes the names of the classes whose fields have been looked up so far, one per line and sorted, so
+    // that a later run can hand them to prewarm() through readClassSnapshot()
+    public static void writeClassSnapshot(Writer out) throws IOException
+    {
+        final Set<String> names = new TreeSet<String>();
+        for (Class c : classMetaCache.keySet())
+        {
+            if (!c.isAnonymousClass() && !c.isSynthetic())
+            {
+                names.add(c.getName());
+            }
+        }
+        for (String name : names)
+        {
+            out.write(name);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    
+    // Reads the classes written by writeClassSnapshot(), skipping blank lines, lines starting with '#', and
+    // names that no longer load
+    public static List<Class<?>> readClassSnapshot(Reader in, ClassLoader classLoader) throws IOException
+    {
+        final BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        final List<Class<?>> classes = new ArrayList<Class<?>>();
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            line = line.trim();
+            if (line.length() == 0 || line.charAt(0) == '#')
+            {
+                continue;
+            }
+            final Class c = classForName(line, classLoader);
+            if (getLoadClassException() == null)
+            {
+                classes.add(c);
+            }
+        }
+        return classes;
+    }
+
+    private static final class PrewarmTask extends RecursiveAction
+    {
+        private final Class c;
+        private final Set<Class> seen;
+
+        PrewarmTask(Class c, Set<Class> seen)
+        {
+            this.c = c;
+            this.seen = seen;
+        }
+
+        protected void compute()
+        {
+            final List<PrewarmTask> next = new ArrayList<PrewarmTask>();
+            try
+            {
+                prewarmClass(c, next);
+            }
+            catch (ThreadDeath t)
+            {
+                throw t;
+            }
+            catch (VirtualMachineError e)
+            {
+                throw e;
+            }
+            catch (Throwable ignored)
+            {   // Left for first use to look up, and to report, such as a LinkageError from a missing dependency
+            }
+            invokeAll(next);
+        }
+
+        private void prewarmClass(Class c, List<PrewarmTask> next)
+        {
+            if (c.isArray())
+            {
+                fork(c.getComponentType(), next);
+            }
+            if (!c.isPrimitive())
+            {
+                classForName(c.getName(), JSONPOJOReader.class.getClassLoader());
+            }
+            JSONPOJOWriter.prewarm(c);
+            JSONPOJOReader.prewarm(c);
+            if (c.isArray() || c.isPrimitive() || c.getClassLoader() == null || isLogicalPrimitive(c))
+            {
+                return;
+            }
+
+            for (Field field : getDeepDeclaredFields(c).values())
+            {
+                fork(field.getType(), next);
+                forkTypeArguments(field.getGenericType(), next);
+            }
+            JSONPOJOReadPlan.forClass(c);
+            JSONPOJOWritePlan.forClass(c);
+            JSONPOJOSlotElement.forClass(c);
+            JSONPOJOAdapters.forClass(c);
+            if (JSONPOJOConstructorPlan.forClass(c) == null && !JSONPOJOReader.hasFactory(c) &&
+                    !c.isInterface() && !Modifier.isAbstract(c.getModifiers()))
+            {
+                prewarmConstructor(c);
+            }
+        }
+
+        private void forkTypeArguments(Type type, List<PrewarmTask> next)
+        {
+            if (type instanceof ParameterizedType)
+            {
+                for (Type arg : ((ParameterizedType) type).getActualTypeArguments())
+                {
+                    if (arg instanceof Class)
+                    {
+                        fork((Class) arg, next);
+                    }
+                    forkTypeArguments(arg, next);
+                }
+            }
+            else if (type instanceof GenericArrayType)
+            {
+                forkTypeArguments(((GenericArrayType) type).getGenericComponentType(), next);
+            }
+            else if (type instanceof WildcardType)
+            {
+                for (Type bound : ((WildcardType) type).getUpperBounds())
+                {
+                    if (bound instanceof Class)
+                    {
+                        fork((Class) bound, next);
+                    }
+                    forkTypeArguments(bound, next);
+                }
+            }
+        }
+
+        private void fork(Class c, List<PrewarmTask> next)
+        {
+            if (seen.add(c))
+            {
+                next.add(new PrewarmTask(c, seen));
+            }
+        }
+    }
+
     
     public static int getDistance(Class a, Class b)
     {
@@ -277,22 +464,150 @@ public class JSONPOJOMetaUtils
             throw new JSONIOException("Class name cannot be null or empty.");
         }
         Class c = nameToClass.get(name);
+        final Object resolved = c == null ? resolveClass(name, classLoader) : c;
+        if (resolved instanceof Class)
+        {
+            loadClassException.set(null);
+            return (Class) resolved;
+        }
+
+        // Remember why in case later we have a problem
+        final Exception e = (Exception) resolved;
+        loadClassException.set(e);
+        if(failOnClassLoadingError) {
+            throw new JSONIOException("Unable to create class: " + name, e);
+        }
+        return LinkedHashMap.class;
+    }
+
+    // Why the last classForName() on this thread fell back to LinkedHashMap, or null when it did not
+    static Exception getLoadClassException()
+    {
+        return loadClassException.get();
+    }
+
+    // The class for name, or the Exception loading it failed with. What classLoader cannot load is looked up with
+    // the thread's context class loader. The answers are cached per class loader, failures too, so repeated names
+    // skip loadClass() and its class loader lock, also when only the context class loader knows them.
+    private static Object resolveClass(String name, ClassLoader classLoader)
+    {
+        final ClassLoader context = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null)
+        {
+            return context == null ? new ClassNotFoundException(name) : resolveClass(name, loadedClasses(context, true));
+        }
+        final Object resolved = resolveClass(name, loadedClasses(classLoader, false));
+        if (resolved instanceof Class || context == null || context == classLoader)
+        {
+            return resolved;
+        }
+        return resolveClass(name, loadedClasses(context, true));
+    }
+
+    private static Object resolveClass(String name, LoadedClasses cache)
+    {
+        Object resolved = cache.get(name);
+        if (resolved != null)
+        {
+            return resolved;
+        }
+        final ClassLoader classLoader = cache.classLoader.get();
         try
         {
-            loadClassException = null;
-            return c == null ? loadClass(name, classLoader) : c;
+            resolved = loadClass(name, classLoader);
         }
         catch (Exception e)
         {
-            // Remember why in case later we have a problem
-            loadClassException = e;
-            if(failOnClassLoadingError) {
-                throw new JSONIOException("Unable to create class: " + name, e);
+            cache.putFailure(name, e);
+            return e;
+        }
+        cache.putClass(name, (Class) resolved);
+        return resolved;
+    }
+
+    private static LoadedClasses loadedClasses(ClassLoader classLoader, boolean context)
+    {
+        LoadedClasses cache = context ? lastContextClasses : lastLoadedClasses;
+        if (cache != null && cache.classLoader.get() == classLoader)
+        {
+            return cache;
+        }
+        synchronized (loadedClasses)
+        {
+            cache = loadedClasses.get(classLoader);
+            if (cache == null)
+            {
+                cache = new LoadedClasses(classLoader);
+                loadedClasses.put(classLoader, cache);
             }
-            return LinkedHashMap.class;
         }
+        if (context)
+        {
+            lastContextClasses = cache;
+        }
+        else
+        {
+            lastLoadedClasses = cache;
+        }
+        return cache;
     }
 
+    // The classes of one class loader by name. Nothing in here may reach the class loader strongly, or it would
+    // keep its own key in loadedClasses alive: the classes are held weakly, and the failures as a copy without
+    // the stack, as an Exception holds on to the classes of the stack it was thrown through.
+    private static final class LoadedClasses
+    {
+        final WeakReference<ClassLoader> classLoader;
+        // A WeakReference to the class, or the ClassNotFoundException loading it failed with
+        private final ConcurrentMap<String, Object> names = new ConcurrentHashMap<String, Object>();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        LoadedClasses(ClassLoader classLoader)
+        {
+            this.classLoader = new WeakReference<ClassLoader>(classLoader);
+        }
+
+        // The class for name, the Exception loading it failed with, or null if not asked before
+        Object get(String name)
+        {
+            final Object value = names.get(name);
+            return value instanceof WeakReference ? ((WeakReference) value).get() : value;
+        }
+
+        void putClass(String name, Class c)
+        {
+            names.put(name, new WeakReference<Class>(c));
+        }
+
+        void putFailure(String name, Exception e)
+        {
+            if (e instanceof ClassNotFoundException && failures.get() < MAX_FAILED_CLASS_NAMES &&
+                    names.putIfAbsent(name, new ClassNotLoaded(e.getMessage())) == null)
+            {
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    // A ClassNotFoundException that takes no stack, so that it can be kept and handed out again
+    private static final class ClassNotLoaded extends ClassNotFoundException
+    {
+        ClassNotLoaded(String message)
+        {
+            super(message);
+        }
+
+        public Throwable fillInStackTrace()
+        {
+            return this;
+        }
+
+        public String toString()
+        {
+            final String message = getMessage();
+            return ClassNotFoundException.class.getName() + (message == null ? "" : ": " + message);
+        }
+    }
 
     
     static Class classForName(String name, ClassLoader classLoader)
@@ -352,14 +667,7 @@ public class JSONPOJOMetaUtils
         Class currentClass = null;
         if (null == primitiveArray)
         {
-          try
-          {
-              currentClass = classLoader.loadClass(className);
-          }
-          catch (ClassNotFoundException e)
-          {
-              currentClass = Thread.currentThread().getContextClassLoader().loadClass(className);
-          }
+            currentClass = classLoader.loadClass(className);
         }
 
         if (arrayType)
@@ -446,7 +754,21 @@ public class JSONPOJOMetaUtils
 
             Boolean useNull = (Boolean) constructorInfo[1];
             Class[] paramTypes = constructor.getParameterTypes();
-            if (paramTypes == null || paramTypes.length == 0)
+            if (constructorInfo.length > 2)
+            {   // Cached by prewarmConstructor() without being run: on failure, choose as if it had not been cached
+                try
+                {
+                    final Object instance = constructor.newInstance();
+                    constructors.replace(c, constructorInfo, new Object[]{constructor, useNull});
+                    return instance;
+                }
+                catch (Exception e)
+                {
+                    constructors.remove(c, constructorInfo);
+                    constructorInfo = null;
+                }
+            }
+            else if (paramTypes == null || paramTypes.length == 0)
             {
                 try
                 {
@@ -457,14 +779,17 @@ public class JSONPOJOMetaUtils
                     throw new JSONIOException("Could not instantiate " + c.getName(), e);
                 }
             }
-            Object[] values = fillArgs(paramTypes, useNull);
-            try
+            if (constructorInfo != null)
             {
-                return constructor.newInstance(values);
-            }
-            catch (Exception e)
-            {   // Should never happen, as the code that fetched the constructor was able to instantiate it once already
-                throw new JSONIOException("Could not instantiate " + c.getName(), e);
+                Object[] values = fillArgs(paramTypes, useNull);
+                try
+                {
+                    return constructor.newInstance(values);
+                }
+                catch (Exception e)
+                {   // Should never happen, as the code that fetched the constructor was able to instantiate it once already
+                    throw new JSONIOException("Could not instantiate " + c.getName(), e);
+                }
             }
         }
 
@@ -474,6 +799,26 @@ public class JSONPOJOMetaUtils
     }
 
     
+    // Caches the constructor newInstance() tries first for c, the public no-argument one, without running it.
+    // It is marked as not run yet, so that newInstance() still falls back to the other constructors should it
+    // fail. For other classes the constructors are only looked up, as which one works is known once run.
+    static void prewarmConstructor(Class c)
+    {
+        if (constructors.containsKey(c))
+        {
+            return;
+        }
+        try
+        {
+            constructors.putIfAbsent(c, new Object[]{c.getConstructor(emptyClassArray), true, null});
+        }
+        catch (NoSuchMethodException e)
+        {
+            c.getDeclaredConstructors();
+        }
+    }
+
+    
     static Object[] newInstanceEx(Class c)
     {
         try
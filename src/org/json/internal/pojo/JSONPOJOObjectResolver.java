@@ -4,8 +4,8 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.lang.reflect.TypeVariable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
@@ -20,11 +20,18 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
 {
     private final ClassLoader classLoader;
     protected JSONPOJOReader.MissingFieldHandler missingFieldHandler;
+    // Subclasses may override assignField(), so only this class binds fields through the compiled plans
+    private final boolean usePlans = getClass() == JSONPOJOObjectResolver.class;
 
     
     protected JSONPOJOObjectResolver(JSONPOJOReader reader, ClassLoader classLoader)
     {
-        super(reader);
+        this(reader, classLoader, true);
+    }
+
+    JSONPOJOObjectResolver(JSONPOJOReader reader, ClassLoader classLoader, boolean register)
+    {
+        super(reader, register);
         this.classLoader = classLoader;
         missingFieldHandler = reader.getMissingFieldHandler();
     }
@@ -33,34 +40,113 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
     public void traverseFields(final Deque<JSONPOJOElement<String, Object>> stack, final JSONPOJOElement<String, Object> jsonObj)
     {
         final Object javaMate = jsonObj.target;
-        final Iterator<Map.Entry<String, Object>> i = jsonObj.entrySet().iterator();
-        final Class cls = javaMate.getClass();
+        if (constructorPlan(javaMate.getClass()) != null)
+        {   // Its fields were passed to its constructor when it was created
+            return;
+        }
+        final JSONPOJOReadPlan plan = JSONPOJOReadPlan.forClass(javaMate.getClass());
+        final JSONPOJOClassAdapter adapter = usePlans ? JSONPOJOAdapters.forClass(javaMate.getClass()) : null;
+        if (adapter != null && !hasCustomReader(String.class))
+        {   // The generated adapter sets what it can straight from the JSON values and hands the rest back
+            adapter.readFields(jsonObj, javaMate, new AdapterFields(stack, jsonObj, plan));
+            return;
+        }
+        Iterator<Map.Entry<String, Object>> i;
+        if (usePlans && jsonObj instanceof JSONPOJOSlotElement && ((JSONPOJOSlotElement) jsonObj).isCompact(plan))
+        {   // Fields straight from the slots, then whatever keys are no field
+            final JSONPOJOSlotElement slots = (JSONPOJOSlotElement) jsonObj;
+            for (JSONPOJOReadPlan.FieldSlot slot : plan.slots)
+            {
+                if (slots.hasValue(slot.index))
+                {
+                    assignField(stack, jsonObj, slot.field, slot, slots.value(slot.index));
+                }
+            }
+            i = slots.otherEntries().iterator();
+        }
+        else
+        {
+            i = jsonObj.entrySet().iterator();
+        }
 
         while (i.hasNext())
         {
             Map.Entry<String, Object> e = i.next();
-            String key = e.getKey();
-            final Field field = JSONPOJOMetaUtils.getField(cls, key);
-            Object rhs = e.getValue();
-            if (field != null)
+            assignKey(stack, jsonObj, plan, e.getKey(), e.getValue());
+        }
+    }
+
+    private void assignKey(final Deque<JSONPOJOElement<String, Object>> stack, final JSONPOJOElement<String, Object> jsonObj,
+                           final JSONPOJOReadPlan plan, final String key, final Object rhs)
+    {
+        final JSONPOJOReadPlan.FieldSlot slot = plan.slot(key);
+        if (slot != null)
+        {
+            if (usePlans)
             {
-                assignField(stack, jsonObj, field, rhs);
+                assignField(stack, jsonObj, slot.field, slot, rhs);
             }
-            else if (missingFieldHandler != null)
+            else
             {
-                handleMissingField(stack, jsonObj, rhs, key);
-            }//else no handler so ignor.
+                assignField(stack, jsonObj, slot.field, rhs);
+            }
+        }
+        else if (missingFieldHandler != null)
+        {
+            handleMissingField(stack, jsonObj, rhs, key);
+        }//else no handler so ignor.
+    }
+
+    // Takes the values a generated adapter leaves to the resolver, for the JSON object it is reading
+    private final class AdapterFields implements JSONPOJOClassAdapter.Fields
+    {
+        private final Deque<JSONPOJOElement<String, Object>> stack;
+        private final JSONPOJOElement<String, Object> jsonObj;
+        private final JSONPOJOReadPlan plan;
+
+        AdapterFields(Deque<JSONPOJOElement<String, Object>> stack, JSONPOJOElement<String, Object> jsonObj, JSONPOJOReadPlan plan)
+        {
+            this.stack = stack;
+            this.jsonObj = jsonObj;
+            this.plan = plan;
+        }
+
+        public void assign(String key, Object value)
+        {
+            assignKey(stack, jsonObj, plan, key, value);
         }
     }
 
     
     protected void assignField(final Deque<JSONPOJOElement<String, Object>> stack, final JSONPOJOElement jsonObj,
                                final Field field, final Object rhs)
+    {
+        assignField(stack, jsonObj, field, null, rhs);
+    }
+
+    // With a slot, the field's plan supplies the setter and the pre-resolved generic type
+    void assignField(final Deque<JSONPOJOElement<String, Object>> stack, final JSONPOJOElement jsonObj,
+                             final Field field, final JSONPOJOReadPlan.FieldSlot slot, final Object rhs)
     {
         final Object target = jsonObj.target;
         try
         {
             final Class fieldType = field.getType();
+            if (slot != null && rhs != null && slot.kind != JSONPOJOReadPlan.OBJECT && !hasCustomReader(fieldType))
+            {   // Numbers, booleans and strings as they come from the parser, when no reader claims the field type
+                if (slot.kind == JSONPOJOReadPlan.STRING)
+                {
+                    if (rhs instanceof String)
+                    {
+                        slot.set(target, rhs);
+                        return;
+                    }
+                }
+                else if (slot.setParsed(target, rhs))
+                {
+                    return;
+                }
+            }
             if (rhs == null)
             {   // Logically clear field (allows null to be set against primitive fields, yielding their zero value.
                 if (fieldType.isPrimitive())
@@ -69,7 +155,7 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
                 }
                 else
                 {
-                    field.set(target, null);
+                    set(field, slot, target, null);
                 }
                 return;
             }
@@ -80,9 +166,10 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
             // exists).
             if (rhs instanceof JSONPOJOElement)
             {
-                if (field.getGenericType() instanceof ParameterizedType)
+                final JSONPOJOTypeTemplate template = slot != null ? slot.typeTemplate : JSONPOJOTypeTemplate.forField(field);
+                if (template != null)
                 {   // Only JsonObject instances could contain unmarked objects.
-                    markUntypedObjects(field.getGenericType(), rhs, JSONPOJOMetaUtils.getDeepDeclaredFields(fieldType));
+                    markUntypedObjects(template, rhs);
                 }
 
                 // Ensure .type field set on JsonObject
@@ -100,11 +187,11 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
                 final JSONPOJOElement jObj = new JSONPOJOElement();
                 jObj.type = fieldType.getName();
                 Object value = createJavaObjectInstance(fieldType, jObj);
-                field.set(target, value);
+                set(field, slot, target, value);
             }
             else if ((special = readIfMatching(rhs, fieldType, stack)) != null)
             {
-                field.set(target, special);
+                set(field, slot, target, special);
             }
             else if (rhs.getClass().isArray())
             {    // LHS of assignment is an [] field or RHS is an array and LHS is Object
@@ -115,18 +202,18 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
                     // out as UTF8 strings for compactness and speed.
                     if (elements.length == 0)
                     {
-                        field.set(target, new char[]{});
+                        set(field, slot, target, new char[]{});
                     }
                     else
                     {
-                        field.set(target, ((String) elements[0]).toCharArray());
+                        set(field, slot, target, ((String) elements[0]).toCharArray());
                     }
                 }
                 else
                 {
                     jsonArray.put("@items", elements);
                     createJavaObjectInstance(fieldType, jsonArray);
-                    field.set(target, jsonArray.target);
+                    set(field, slot, target, jsonArray.target);
                     stack.addFirst(jsonArray);
                 }
             }
@@ -141,16 +228,16 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
 
                     if (refObject.target != null)
                     {
-                        field.set(target, refObject.target);
+                        set(field, slot, target, refObject.target);
                     }
                     else
                     {
-                        unresolvedRefs.add(new UnresolvedReference(jsonObj, field.getName(), ref));
+                        unresolvedRefs.add(new UnresolvedReference(jsonObj, field, slot, ref));
                     }
                 }
                 else
                 {    // Assign ObjectMap's to Object (or derived) fields
-                    field.set(target, createJavaObjectInstance(fieldType, jObj));
+                    set(field, slot, target, createJavaObjectInstance(fieldType, jObj));
                     if (!JSONPOJOMetaUtils.isLogicalPrimitive(jObj.getTargetClass()))
                     {
                         stack.addFirst((JSONPOJOElement) rhs);
@@ -161,27 +248,235 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
             {
                 if (JSONPOJOMetaUtils.isPrimitive(fieldType))
                 {
-                    field.set(target, JSONPOJOMetaUtils.convert(fieldType, rhs));
+                    set(field, slot, target, JSONPOJOMetaUtils.convert(fieldType, rhs));
                 }
                 else if (rhs instanceof String && "".equals(((String) rhs).trim()) && fieldType != String.class)
                 {   // Allow "" to null out a non-String field
-                    field.set(target, null);
+                    set(field, slot, target, null);
                 }
                 else
                 {
-                    field.set(target, rhs);
+                    set(field, slot, target, rhs);
                 }
             }
         }
         catch (Exception e)
         {
             String message = e.getClass().getSimpleName() + " setting field '" + field.getName() + "' on target: " + safeToString(target) + " with value: " + rhs;
-            if (JSONPOJOMetaUtils.loadClassException != null)
+            if (JSONPOJOMetaUtils.getLoadClassException() != null)
             {
-                message += " Caused by: " + JSONPOJOMetaUtils.loadClassException + " (which created a LinkedHashMap instead of the desired class)";
+                message += " Caused by: " + JSONPOJOMetaUtils.getLoadClassException() + " (which created a LinkedHashMap instead of the desired class)";
             }
             throw new JSONIOException(message, e);
         }
+        catch (Error e)
+        {
+            throw e;
+        }
+        catch (Throwable t)
+        {
+            throw new JSONIOException(t.getClass().getSimpleName() + " setting field '" + field.getName() + "' on target: " + safeToString(target) + " with value: " + rhs, t);
+        }
+    }
+
+    // Plan of a class whose fields go to its constructor, unless a factory or custom reader creates it instead
+    private JSONPOJOConstructorPlan constructorPlan(Class c)
+    {
+        final JSONPOJOConstructorPlan plan = JSONPOJOConstructorPlan.forClass(c);
+        return plan == null || JSONPOJOReader.hasFactory(c) || hasCustomReader(c) ? null : plan;
+    }
+
+    Object instantiate(Class c, JSONPOJOElement jsonObj)
+    {
+        final JSONPOJOConstructorPlan plan = constructorPlan(c);
+        if (plan == null)
+        {
+            return super.instantiate(c, jsonObj);
+        }
+        // Built already, as readIfMatching() does before assignField() asks again: constructing it a second time
+        // would find the values it consumed, such as the @items of its collections, gone
+        return c.isInstance(jsonObj.target) ? jsonObj.target : construct(plan, c, jsonObj);
+    }
+
+    // Converts the values of jsonObj into the constructor's arguments, in the order of the JSON. Each value is
+    // converted completely, the objects inside it included, before the next one, so that a later @ref to an
+    // object in an earlier value finds it built.
+    private Object construct(final JSONPOJOConstructorPlan plan, final Class c, final JSONPOJOElement<String, Object> jsonObj)
+    {
+        final Object[] args = plan.arguments();
+        final Deque<JSONPOJOElement<String, Object>> stack = new ArrayDeque<JSONPOJOElement<String, Object>>();
+        List<String> missing = null;
+        for (Map.Entry<String, Object> e : jsonObj.entrySet())
+        {
+            final int i = plan.param(e.getKey());
+            if (i >= 0)
+            {
+                if (e.getValue() != null)
+                {
+                    args[i] = argument(plan.params[i], c, e.getValue(), stack);
+                    traverse(stack);
+                }
+            }
+            else if (missingFieldHandler != null)
+            {
+                if (missing == null)
+                {
+                    missing = new ArrayList<String>();
+                }
+                missing.add(e.getKey());
+            }
+        }
+
+        final Object instance;
+        try
+        {
+            instance = plan.newInstance(args);
+        }
+        catch (Error e)
+        {
+            throw e;
+        }
+        catch (Throwable t)
+        {
+            throw new JSONIOException(t.getClass().getSimpleName() + " constructing " + c.getName() + " from: " + jsonObj, t);
+        }
+        if (missing != null)
+        {
+            jsonObj.target = instance;
+            for (String key : missing)
+            {
+                handleMissingField(stack, jsonObj, jsonObj.get(key), key);
+            }
+            traverse(stack);
+        }
+        return instance;
+    }
+
+    // The value of a constructor argument, as assignField() would set it on the field, objects inside it pushed on stack
+    private Object argument(final JSONPOJOReadPlan.FieldSlot param, final Class c, final Object rhs, final Deque<JSONPOJOElement<String, Object>> stack)
+    {
+        final Class type = param.type;
+        try
+        {
+            if ((type == String.class ? rhs instanceof String : type.isPrimitive() && (rhs instanceof Number || rhs instanceof Boolean)) &&
+                    !hasCustomReader(type))
+            {   // Numbers, booleans and strings as they come from the parser
+                return type == String.class ? rhs : JSONPOJOMetaUtils.convert(type, rhs);
+            }
+
+            if (rhs instanceof JSONPOJOElement)
+            {
+                if (param.typeTemplate != null)
+                {
+                    markUntypedObjects(param.typeTemplate, rhs);
+                }
+                final JSONPOJOElement job = (JSONPOJOElement) rhs;
+                if (job.type == null || job.type.isEmpty())
+                {
+                    job.setType(type.getName());
+                }
+            }
+
+            Object special;
+            if (rhs == JSONPOJOParser.EMPTY_OBJECT)
+            {
+                final JSONPOJOElement jObj = new JSONPOJOElement();
+                jObj.type = type.getName();
+                return createJavaObjectInstance(type, jObj);
+            }
+            if ((special = readIfMatching(rhs, type, stack)) != null)
+            {
+                return special;
+            }
+            if (rhs.getClass().isArray())
+            {
+                final Object[] elements = (Object[]) rhs;
+                if (char[].class == type)
+                {
+                    return elements.length == 0 ? new char[]{} : ((String) elements[0]).toCharArray();
+                }
+                final JSONPOJOElement<String, Object> jsonArray = new JSONPOJOElement<String, Object>();
+                jsonArray.put("@items", elements);
+                createJavaObjectInstance(type, jsonArray);
+                stack.addFirst(jsonArray);
+                return jsonArray.target;
+            }
+            if (rhs instanceof JSONPOJOElement)
+            {
+                final JSONPOJOElement<String, Object> jObj = (JSONPOJOElement) rhs;
+                final Long ref = jObj.getReferenceId();
+                if (ref != null)
+                {
+                    final JSONPOJOElement refObject = getReferencedObj(ref);
+                    if (refObject.target == null)
+                    {
+                        throw new JSONIOException("@ref " + ref + " in '" + param.name + "' of " + c.getName() +
+                                " is to an object not built yet, which a constructor argument cannot wait for");
+                    }
+                    return refObject.target;
+                }
+                final Object value = createJavaObjectInstance(type, jObj);
+                if (!JSONPOJOMetaUtils.isLogicalPrimitive(jObj.getTargetClass()))
+                {
+                    stack.addFirst(jObj);
+                }
+                return value;
+            }
+            if (JSONPOJOMetaUtils.isPrimitive(type))
+            {
+                return JSONPOJOMetaUtils.convert(type, rhs);
+            }
+            if (rhs instanceof String && "".equals(((String) rhs).trim()) && type != String.class)
+            {   // Allow "" to null out a non-String argument
+                return null;
+            }
+            return rhs;
+        }
+        catch (Exception e)
+        {
+            throw new JSONIOException(e.getClass().getSimpleName() + " converting '" + param.name + "' for the constructor of " + c.getName() + " with value: " + rhs, e);
+        }
+    }
+
+    // Sets a value that is already a Java object, such as one bound by JSONPOJOStreamBinder
+    void setField(final JSONPOJOElement jsonObj, final JSONPOJOReadPlan.FieldSlot slot, final Object value)
+    {
+        final Object target = jsonObj.target;
+        try
+        {
+            slot.set(target, value);
+        }
+        catch (Error e)
+        {
+            throw e;
+        }
+        catch (Throwable t)
+        {
+            throw new JSONIOException(t.getClass().getSimpleName() + " setting field '" + slot.field.getName() + "' on target: " + safeToString(target) + " with value: " + value, t);
+        }
+    }
+
+    private static void set(Field field, JSONPOJOReadPlan.FieldSlot slot, Object target, Object value) throws Throwable
+    {
+        if (slot != null)
+        {
+            slot.set(target, value);
+        }
+        else
+        {
+            field.set(target, value);
+        }
+    }
+
+    // The stock String reader returns strings unchanged, so it does not count
+    private boolean hasCustomReader(Class c)
+    {
+        if (notCustom(c))
+        {
+            return false;
+        }
+        JSONPOJOReader.JsonClassReaderBase closestReader = getCustomReader(c);
+        return closestReader != null && (c != String.class || closestReader.getClass() != JSONPOJOReaders.StringReader.class);
     }
 
 
@@ -250,9 +545,9 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
         {
             String message = e.getClass().getSimpleName() + " missing field '" + missingField + "' on target: "
                     + safeToString(target) + " with value: " + rhs;
-            if (JSONPOJOMetaUtils.loadClassException != null)
+            if (JSONPOJOMetaUtils.getLoadClassException() != null)
             {
-                message += " Caused by: " + JSONPOJOMetaUtils.loadClassException
+                message += " Caused by: " + JSONPOJOMetaUtils.getLoadClassException()
                         + " (which created a LinkedHashMap instead of the desired class)";
             }
             throw new JSONIOException(message, e);
@@ -582,154 +877,127 @@ public class JSONPOJOObjectResolver extends JSONPOJOResolver
 		return read;
     }
 
-    private void markUntypedObjects(final Type type, final Object rhs, final Map<String, Field> classFields)
+    // Stamps @type, from the field's type template, on the untyped JSON objects in rhs
+    private void markUntypedObjects(final JSONPOJOTypeTemplate template, final Object rhs)
     {
         final Deque<Object[]> stack = new ArrayDeque<Object[]>();
-        stack.addFirst(new Object[] {type, rhs});
+        stack.addFirst(new Object[] {template, rhs});
 
         while (!stack.isEmpty())
         {
             Object[] item = stack.removeFirst();
-            final Type t = (Type) item[0];
+            final JSONPOJOTypeTemplate t = (JSONPOJOTypeTemplate) item[0];
             final Object instance = item[1];
-            if (t instanceof ParameterizedType)
-            {
-                final Class clazz = getRawType(t);
-                final ParameterizedType pType = (ParameterizedType)t;
-                final Type[] typeArgs = pType.getActualTypeArguments();
+            stampTypeOnJsonObject(instance, t.typeName);
 
-                if (typeArgs == null || typeArgs.length < 1 || clazz == null)
-                {
-                    continue;
+            if (t.kind == JSONPOJOTypeTemplate.MAP)
+            {
+                Map map = (Map) instance;
+                if (!map.containsKey("@keys") && !map.containsKey("@items") && map instanceof JSONPOJOElement)
+                {   // Maps created in Javascript will come over without @keys / @items.
+                    convertMapToKeysItems((JSONPOJOElement) map);
                 }
 
-                stampTypeOnJsonObject(instance, t);
+                Object[] keys = (Object[])map.get("@keys");
+                getTemplateTraverseWorkItem(stack, keys, t.args[0]);
 
-                if (Map.class.isAssignableFrom(clazz))
-                {
-                    Map map = (Map) instance;
-                    if (!map.containsKey("@keys") && !map.containsKey("@items") && map instanceof JSONPOJOElement)
-                    {   // Maps created in Javascript will come over without @keys / @items.
-                        convertMapToKeysItems((JSONPOJOElement) map);
-                    }
-
-                    Object[] keys = (Object[])map.get("@keys");
-                    getTemplateTraverseWorkItem(stack, keys, typeArgs[0]);
-
-                    Object[] items = (Object[])map.get("@items");
-                    getTemplateTraverseWorkItem(stack, items, typeArgs[1]);
-                }
-                else if (Collection.class.isAssignableFrom(clazz))
+                Object[] items = (Object[])map.get("@items");
+                getTemplateTraverseWorkItem(stack, items, t.args[1]);
+            }
+            else if (t.kind == JSONPOJOTypeTemplate.COLLECTION)
+            {
+                if (instance instanceof Object[])
                 {
-                    if (instance instanceof Object[])
+                    Object[] array = (Object[]) instance;
+                    for (int i=0; i < array.length; i++)
                     {
-                        Object[] array = (Object[]) instance;
-                        for (int i=0; i < array.length; i++)
+                        Object vals = array[i];
+                        stack.addFirst(new Object[]{t, vals});
+
+                        if (vals instanceof JSONPOJOElement)
                         {
-                            Object vals = array[i];
                             stack.addFirst(new Object[]{t, vals});
-
-                            if (vals instanceof JSONPOJOElement)
-                            {
-                                stack.addFirst(new Object[]{t, vals});
-                            }
-                            else if (vals instanceof Object[])
-                            {
-                                JSONPOJOElement coll = new JSONPOJOElement();
-                                coll.type = clazz.getName();
-                                List items = Arrays.asList((Object[]) vals);
-                                coll.put("@items", items.toArray());
-                                stack.addFirst(new Object[]{t, items});
-                                array[i] = coll;
-                            }
-                            else
-                            {
-                                stack.addFirst(new Object[]{t, vals});
-                            }
                         }
-                    }
-                    else if (instance instanceof Collection)
-                    {
-                        final Collection col = (Collection)instance;
-                        for (Object o : col)
+                        else if (vals instanceof Object[])
                         {
-                            stack.addFirst(new Object[]{typeArgs[0], o});
+                            JSONPOJOElement coll = new JSONPOJOElement();
+                            coll.type = t.typeName;
+                            List items = Arrays.asList((Object[]) vals);
+                            coll.put("@items", items.toArray());
+                            stack.addFirst(new Object[]{t, items});
+                            array[i] = coll;
                         }
-                    }
-                    else if (instance instanceof JSONPOJOElement)
-                    {
-                        final JSONPOJOElement jObj = (JSONPOJOElement) instance;
-                        final Object[] array = jObj.getArray();
-                        if (array != null)
+                        else
                         {
-                            for (Object o : array)
-                            {
-                                stack.addFirst(new Object[]{typeArgs[0], o});
-                            }
+                            stack.addFirst(new Object[]{t, vals});
                         }
                     }
                 }
-                else
+                else if (instance instanceof Collection)
                 {
-                    if (instance instanceof JSONPOJOElement)
+                    final Collection col = (Collection)instance;
+                    for (Object o : col)
                     {
-                        final JSONPOJOElement<String, Object> jObj = (JSONPOJOElement) instance;
-
-                        for (Map.Entry<String, Object> entry : jObj.entrySet())
+                        stack.addFirst(new Object[]{t.args[0], o});
+                    }
+                }
+                else if (instance instanceof JSONPOJOElement)
+                {
+                    final JSONPOJOElement jObj = (JSONPOJOElement) instance;
+                    final Object[] array = jObj.getArray();
+                    if (array != null)
+                    {
+                        for (Object o : array)
                         {
-                            final String fieldName = entry.getKey();
-                            if (!fieldName.startsWith("this$"))
-                            {
-                                Field field = classFields.get(fieldName);
-
-                                if (field != null && (field.getType().getTypeParameters().length > 0 || field.getGenericType() instanceof TypeVariable))
-                                {
-                                    stack.addFirst(new Object[]{typeArgs[0], entry.getValue()});
-                                }
-                            }
+                            stack.addFirst(new Object[]{t.args[0], o});
                         }
                     }
                 }
             }
-            else
+            else if (t.kind == JSONPOJOTypeTemplate.OBJECT && instance instanceof JSONPOJOElement && !t.genericFields.isEmpty())
             {
-                stampTypeOnJsonObject(instance, t);
+                final JSONPOJOElement<String, Object> jObj = (JSONPOJOElement) instance;
+
+                for (Map.Entry<String, Object> entry : jObj.entrySet())
+                {
+                    if (t.genericFields.contains(entry.getKey()))
+                    {
+                        stack.addFirst(new Object[]{t.args[0], entry.getValue()});
+                    }
+                }
             }
         }
     }
 
-    private static void getTemplateTraverseWorkItem(final Deque<Object[]> stack, final Object[] items, final Type type)
+    private static void getTemplateTraverseWorkItem(final Deque<Object[]> stack, final Object[] items, final JSONPOJOTypeTemplate template)
     {
         if (items == null || items.length < 1)
         {
             return;
         }
-        Class rawType = getRawType(type);
-        if (rawType != null && Collection.class.isAssignableFrom(rawType))
+        if (template.collection)
         {
-            stack.add(new Object[]{type, items});
+            stack.add(new Object[]{template, items});
         }
         else
         {
             for (Object o : items)
             {
-                stack.add(new Object[]{type, o});
+                stack.add(new Object[]{template, o});
             }
         }
     }
 
     // Mark 'type' on JsonObject when the type is missing and it is a 'leaf'
     // node (no further subtypes in it's parameterized type definition)
-    private static void stampTypeOnJsonObject(final Object o, final Type t)
+    private static void stampTypeOnJsonObject(final Object o, final String typeName)
     {
-        Class clazz = t instanceof Class ? (Class)t : getRawType(t);
-
-        if (o instanceof JSONPOJOElement && clazz != null)
+        if (o instanceof JSONPOJOElement && typeName != null)
         {
             JSONPOJOElement jObj = (JSONPOJOElement) o;
             if ((jObj.type == null || jObj.type.isEmpty()) && jObj.target == null)
             {
-                jObj.type = clazz.getName();
+                jObj.type = typeName;
             }
         }
     }
@@ -0,0 +1,126 @@
+package org.json.internal.pojo;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+// Converts the elements of a top-level array or collection on a ForkJoinPool, for the PARALLEL option of
+// JSONPOJOReader. The reader only asks for it when the parser read no @ref, so no element can reach into
+// another. The elements are cut into runs, and each run is converted by a resolver of its own as if it were
+// the whole array, then copied into the root in order. Fields missing from their classes are handed back to
+// the resolver of the whole graph in the order converting it in one go finds them, for it to report once
+// conversion is done.
+final class JSONPOJOParallelConverter
+{
+    // Fewer elements than this per run cost more to hand out than they save
+    private static final int MIN_RUN = 64;
+
+    private final JSONPOJOObjectResolver resolver;
+    private final ForkJoinPool pool;
+
+    JSONPOJOParallelConverter(JSONPOJOObjectResolver resolver, ForkJoinPool pool)
+    {
+        this.resolver = resolver;
+        this.pool = pool;
+    }
+
+    // Converts root, already instantiated, and returns its Java object
+    Object convert(final JSONPOJOElement<String, Object> root)
+    {
+        final Object[] items = root.target == null ? null : root.getArray();
+        final int runs = items == null ? 0 : Math.min(items.length / MIN_RUN, pool.getParallelism() * 4);
+        final boolean array = runs > 1 && root.isArray() && !root.getComponentType().isPrimitive();
+        if (runs < 2 || !(array || (!root.isArray() && root.target instanceof Collection)))
+        {
+            return resolver.convertMapsToObjects(root);
+        }
+
+        // Class names that only the caller's context class loader resolves must resolve on the workers too
+        final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        final Run[] tasks = new Run[runs];
+        for (int i = 0; i < runs; i++)
+        {
+            final int from = (int) ((long) items.length * i / runs);
+            final int to = (int) ((long) items.length * (i + 1) / runs);
+            tasks[i] = new Run(Arrays.copyOfRange(items, from, to), array ? root.getComponentType() : null, contextLoader);
+        }
+        pool.invoke(new RecursiveAction()
+        {
+            protected void compute()
+            {
+                invokeAll(tasks);
+            }
+        });
+
+        int at = 0;
+        for (Run task : tasks)
+        {
+            if (array)
+            {
+                final int len = Array.getLength(task.target);
+                System.arraycopy(task.target, 0, root.target, at, len);
+                at += len;
+            }
+            else
+            {
+                ((Collection) root.target).addAll((Collection) task.target);
+            }
+        }
+        // The whole array is converted from its last element to its first, so the runs are taken last first
+        for (int i = tasks.length - 1; i >= 0; i--)
+        {
+            resolver.missingFields.addAll(tasks[i].missingFields);
+        }
+        root.clearArray();
+        return root.target;
+    }
+
+    private final class Run extends RecursiveAction
+    {
+        private final Object[] items;
+        private final Class componentType;
+        private final ClassLoader contextLoader;
+        Object target;
+        Collection<JSONPOJOResolver.Missingfields> missingFields;
+
+        Run(Object[] items, Class componentType, ClassLoader contextLoader)
+        {
+            this.items = items;
+            this.componentType = componentType;
+            this.contextLoader = contextLoader;
+        }
+
+        protected void compute()
+        {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextLoader);
+            try
+            {
+                convertItems();
+            }
+            finally
+            {
+                thread.setContextClassLoader(previous);
+            }
+        }
+
+        private void convertItems()
+        {
+            final JSONPOJOReader reader = resolver.getReader();
+            final JSONPOJOObjectResolver local = new JSONPOJOObjectResolver(reader, reader.getClassLoader(), false);
+            final JSONPOJOElement<String, Object> part = new JSONPOJOElement<String, Object>();
+            part.put("@items", items);
+            part.target = componentType != null ? Array.newInstance(componentType, items.length) : new ArrayList(items.length);
+            local.convertMapsToObjects(part);
+            local.rehashMaps();
+            target = part.target;
+            missingFields = local.missingFields;
+        }
+    }
+}
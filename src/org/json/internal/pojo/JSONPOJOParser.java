@@ -20,12 +20,17 @@ class JSONPOJOParser
     private static final Map<String, String> stringCache = new HashMap<String, String>();
 
     private final JSONPOJOFastPushbackReader input;
-    private final Map<Long, JSONPOJOElement> objsRead;
+    private final JSONPOJOFastPushbackByteReader byteInput;    // input, when it can read the plain runs of strings itself
+    private final JSONPOJOLongMap<JSONPOJOElement> objsRead;
     private final StringBuilder strBuf = new StringBuilder(256);
-    private final StringBuilder hexBuf = new StringBuilder();
     private final StringBuilder numBuf = new StringBuilder();
     private final boolean useMaps;
     private final Map<String, String> typeNameMap;
+    private final JSONPOJOStringCache strings;
+    private final ClassLoader classLoader;
+    private final Map<String, Class> typeClasses = new HashMap<String, Class>();
+    private boolean references;     // an @ref was read, so the objects read are not independent of each other
+    private List<JSONPOJOElement> identified;   // when set, the objects given an @id since it was last cleared
 
     static
     {
@@ -67,19 +72,27 @@ class JSONPOJOParser
         stringCache.put("9", "9");
     }
 
-    JSONPOJOParser(JSONPOJOFastPushbackReader reader, Map<Long, JSONPOJOElement> objectsMap, Map<String, Object> args)
+    JSONPOJOParser(JSONPOJOFastPushbackReader reader, JSONPOJOLongMap<JSONPOJOElement> objectsMap, Map<String, Object> args, JSONPOJOStringCache strings)
     {
+        this.strings = strings;
         input = reader;
+        byteInput = reader instanceof JSONPOJOFastPushbackByteReader ? (JSONPOJOFastPushbackByteReader) reader : null;
         useMaps = Boolean.TRUE.equals(args.get(JSONPOJOReader.USE_MAPS));
         objsRead = objectsMap;
         typeNameMap = (Map<String, String>) args.get(JSONPOJOReader.TYPE_NAME_MAP_REVERSE);
+        classLoader = (ClassLoader) args.get(JSONPOJOReader.CLASSLOADER);
     }
 
-    private Object readJsonObject() throws IOException
+    // declared is the class the object is read into when it has no @type, if known
+    private Object readJsonObject(Class declared) throws IOException
     {
         boolean done = false;
         String field = null;
-        JSONPOJOElement<String, Object> object = new JSONPOJOElement<String, Object>();
+        JSONPOJOElement<String, Object> object = useMaps ? null : JSONPOJOSlotElement.forClass(declared);
+        if (object == null)
+        {
+            object = new JSONPOJOElement<String, Object>();
+        }
         int state = STATE_READ_START_OBJECT;
         final JSONPOJOFastPushbackReader in = input;
 
@@ -109,45 +122,8 @@ class JSONPOJOParser
                     break;
 
                 case STATE_READ_FIELD:
-                    c = skipWhitespaceRead();
-                    if (c == '"')
-                    {
-                        field = readString();
-                        c = skipWhitespaceRead();
-                        if (c != ':')
-                        {
-                            error("Expected ':' between string field and value");
-                        }
-
-                        if (field.startsWith("@"))
-                        {   // Expand short-hand meta keys
-                            if (field.equals("@t"))
-                            {
-                                field = stringCache.get("@type");
-                            }
-                            else if (field.equals("@i"))
-                            {
-                                field = stringCache.get("@id");
-                            }
-                            else if (field.equals("@r"))
-                            {
-                                field = stringCache.get("@ref");
-                            }
-                            else if (field.equals("@k"))
-                            {
-                                field = stringCache.get("@keys");
-                            }
-                            else if (field.equals("@e"))
-                            {
-                                field = stringCache.get("@items");
-                            }
-                        }
-                        state = STATE_READ_VALUE;
-                    }
-                    else
-                    {
-                        error("Expected quote");
-                    }
+                    field = readField();
+                    state = STATE_READ_VALUE;
                     break;
 
                 case STATE_READ_VALUE:
@@ -157,21 +133,17 @@ class JSONPOJOParser
                         field = "@items";
                     }
 
-                    Object value = readValue(object);
-                    if ("@type".equals(field) && typeNameMap != null)
+                    if (object instanceof JSONPOJOSlotElement)
                     {
-                        final String substitute = typeNameMap.get(value);
-                        if (substitute != null)
-                        {
-                            value = substitute;
-                        }
+                        putValue(object, field, readValue(object, ((JSONPOJOSlotElement) object).fieldClass(field)));
                     }
-                    object.put(field, value);
-
-                    // If object is referenced (has @id), then put it in the _objsRead table.
-                    if ("@id".equals(field))
+                    else
                     {
-                        objsRead.put((Long) value, object);
+                        putValue(object, field, readValue(object, null));
+                    }
+                    if ("@type".equals(field))
+                    {
+                        object = compact(object);
                     }
                     state = STATE_READ_POST_VALUE;
                     break;
@@ -206,7 +178,169 @@ class JSONPOJOParser
         return object;
     }
 
+    // Reads the remaining fields of an object whose first fields were already put into it, up to its closing '}'
+    Object finishJsonObject(JSONPOJOElement<String, Object> object) throws IOException
+    {
+        while (true)
+        {
+            int c = skipWhitespaceRead();
+            if (c == -1)
+            {
+                error("EOF reached before closing '}'");
+            }
+            if (c == '}')
+            {
+                break;
+            }
+            else if (c != ',')
+            {
+                error("Object not ended with '}'");
+            }
+            String field = readField();
+            putValue(object, field, readValue(object));
+        }
+
+        if (useMaps && object.isLogicalPrimitive())
+        {
+            return object.getPrimitiveValue();
+        }
+
+        return object;
+    }
+
+    // Reads a quoted field name and the ':' after it, expanding short-hand meta keys
+    String readField() throws IOException
+    {
+        int c = skipWhitespaceRead();
+        if (c != '"')
+        {
+            error("Expected quote");
+        }
+        String field = readString();
+        c = skipWhitespaceRead();
+        if (c != ':')
+        {
+            error("Expected ':' between string field and value");
+        }
+
+        if (field.startsWith("@"))
+        {   // Expand short-hand meta keys
+            if (field.equals("@t"))
+            {
+                field = stringCache.get("@type");
+            }
+            else if (field.equals("@i"))
+            {
+                field = stringCache.get("@id");
+            }
+            else if (field.equals("@r"))
+            {
+                field = stringCache.get("@ref");
+            }
+            else if (field.equals("@k"))
+            {
+                field = stringCache.get("@keys");
+            }
+            else if (field.equals("@e"))
+            {
+                field = stringCache.get("@items");
+            }
+        }
+        return field;
+    }
+
+    // While an object has no fields yet, swaps it for a compact element once its @type tells the class
+    private JSONPOJOElement<String, Object> compact(JSONPOJOElement<String, Object> object)
+    {
+        if (useMaps || object.type == null || !object.isEmpty() ||
+                (object instanceof JSONPOJOSlotElement && ((JSONPOJOSlotElement) object).isCompact()))
+        {
+            return object;
+        }
+        final JSONPOJOSlotElement compact = JSONPOJOSlotElement.forClass(typeClass(object.type));
+        if (compact == null)
+        {
+            return object;
+        }
+        compact.type = object.type;
+        compact.line = object.line;
+        compact.col = object.col;
+        if (object.id != -1)
+        {
+            compact.id = object.id;
+            objsRead.put(object.id, compact);
+        }
+        return compact;
+    }
+
+    // The class named by an @type, or null when it cannot be loaded here
+    private Class typeClass(String type)
+    {
+        if (typeClasses.containsKey(type))
+        {
+            return typeClasses.get(type);
+        }
+        Class c = null;
+        if (classLoader != null)
+        {
+            try
+            {
+                c = JSONPOJOMetaUtils.classForName(type, classLoader);
+            }
+            catch (Exception e)
+            {
+                c = null;
+            }
+        }
+        typeClasses.put(type, c);
+        return c;
+    }
+
+    void putValue(JSONPOJOElement<String, Object> object, String field, Object value)
+    {
+        if ("@type".equals(field) && typeNameMap != null)
+        {
+            final String substitute = typeNameMap.get(value);
+            if (substitute != null)
+            {
+                value = substitute;
+            }
+        }
+        object.put(field, value);
+
+        // If object is referenced (has @id), then put it in the _objsRead table.
+        if ("@id".equals(field))
+        {
+            objsRead.put(((Long) value).longValue(), object);
+            if (identified != null)
+            {
+                identified.add(object);
+            }
+        }
+        else if ("@ref".equals(field))
+        {
+            references = true;
+        }
+    }
+
+    // Collects the objects given an @id from now on into list
+    void trackIdentified(List<JSONPOJOElement> list)
+    {
+        identified = list;
+    }
+
+    // True once an @ref has been read
+    boolean hasReferences()
+    {
+        return references;
+    }
+
     Object readValue(JSONPOJOElement object) throws IOException
+    {
+        return readValue(object, null);
+    }
+
+    private Object readValue(JSONPOJOElement object, Class declared) throws IOException
     {
         int c = skipWhitespaceRead();
         if (c == '"')
@@ -221,7 +355,7 @@ class JSONPOJOParser
         {
             case '{':
                 input.unread('{');
-                return readJsonObject();
+                return readJsonObject(declared);
             case '[':
                 return readArray(object);
             case ']':   // empty array
@@ -344,112 +478,105 @@ class JSONPOJOParser
         }
     }
 
-    private static final int STRING_START = 0;
-    private static final int STRING_SLASH = 1;
-    private static final int HEX_DIGITS = 2;
-
     
-    private String readString() throws IOException
+    String readString() throws IOException
     {
         final StringBuilder str = strBuf;
-        final StringBuilder hex = hexBuf;
         str.setLength(0);
-        int state = STRING_START;
         final JSONPOJOFastPushbackReader in = input;
+        final JSONPOJOFastPushbackByteReader bytes = byteInput;
 
         while (true)
         {
-            final int c = in.read();
+            final int c = bytes != null ? bytes.readStringChars(str) : in.read();
             if (c == -1)
             {
                 error("EOF reached while reading JSON string");
             }
 
-            if (state == STRING_START)
+            if (c == '"')
             {
-                if (c == '"')
-                {
-                    break;
-                }
-                else if (c == '\\')
-                {
-                    state = STRING_SLASH;
-                }
-                else
-                {
-                    str.appendCodePoint(c);
-                }
+                break;
             }
-            else if (state == STRING_SLASH)
+            else if (c == '\\')
             {
-                switch(c)
-                {
-                    case '\\':
-                        str.appendCodePoint('\\');
-                        break;
-                    case '/':
-                        str.appendCodePoint('/');
-                        break;
-                    case '"':
-                        str.appendCodePoint('"');
-                        break;
-                    case '\'':
-                        str.appendCodePoint('\'');
-                        break;
-                    case 'b':
-                        str.appendCodePoint('\b');
-                        break;
-                    case 'f':
-                        str.appendCodePoint('\f');
-                        break;
-                    case 'n':
-                        str.appendCodePoint('\n');
-                        break;
-                    case 'r':
-                        str.appendCodePoint('\r');
-                        break;
-                    case 't':
-                        str.appendCodePoint('\t');
-                        break;
-                    case 'u':
-                        hex.setLength(0);
-                        state = HEX_DIGITS;
-                        break;
-                    default:
-                        error("Invalid character escape sequence specified: " + c);
-                }
-
-                if (c != 'u')
-                {
-                    state = STRING_START;
-                }
+                readEscape(str);
             }
             else
             {
-                if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f'))
-                {
-                    hex.appendCodePoint((char) c);
-                    if (hex.length() == 4)
-                    {
-                        int value = Integer.parseInt(hex.toString(), 16);
-                        str.appendCodePoint(value);
-                        state = STRING_START;
-                    }
-                }
-                else
-                {
-                    error("Expected hexadecimal digits");
-                }
+                str.appendCodePoint(c);
             }
         }
 
+        if (strings != null)
+        {
+            return strings.get(str);
+        }
         final String s = str.toString();
         final String translate =  stringCache.get(s);
         return translate == null ? s : translate;
     }
 
+    // Appends the char of the escape sequence after a backslash
+    private void readEscape(StringBuilder str) throws IOException
+    {
+        final int c = input.read();
+        switch(c)
+        {
+            case '\\':
+                str.append('\\');
+                break;
+            case '/':
+                str.append('/');
+                break;
+            case '"':
+                str.append('"');
+                break;
+            case '\'':
+                str.append('\'');
+                break;
+            case 'b':
+                str.append('\b');
+                break;
+            case 'f':
+                str.append('\f');
+                break;
+            case 'n':
+                str.append('\n');
+                break;
+            case 'r':
+                str.append('\r');
+                break;
+            case 't':
+                str.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++)
+                {
+                    final int h = input.read();
+                    final int digit = Character.digit(h, 16);
+                    if (h == -1)
+                    {
+                        error("EOF reached while reading JSON string");
+                    }
+                    if (digit < 0 || h > 'f')
+                    {
+                        error("Expected hexadecimal digits");
+                    }
+                    value = (value << 4) | digit;
+                }
+                str.append((char) value);
+                break;
+            case -1:
+                error("EOF reached while reading JSON string");
+            default:
+                error("Invalid character escape sequence specified: " + c);
+        }
+    }
+
     
-    private int skipWhitespaceRead() throws IOException
+    int skipWhitespaceRead() throws IOException
     {
         JSONPOJOFastPushbackReader in = input;
         int c;
@@ -0,0 +1,232 @@
+package org.json.internal.pojo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+
+final class JSONPOJOReadPlan
+{
+    static final int OBJECT = 0;
+    static final int STRING = 1;
+    static final int BOOLEAN = 2;
+    static final int BYTE = 3;
+    static final int SHORT = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+
+    private static final ClassValue<JSONPOJOReadPlan> plans = new ClassValue<JSONPOJOReadPlan>()
+    {
+        protected JSONPOJOReadPlan computeValue(Class<?> c)
+        {
+            return new JSONPOJOReadPlan(c);
+        }
+    };
+
+    // Open addressing table from JSON key to slot, sized to at most half full
+    private final FieldSlot[] table;
+    private final int mask;
+    // Every slot, by index, in the order of getDeepDeclaredFields()
+    final FieldSlot[] slots;
+
+    private JSONPOJOReadPlan(Class c)
+    {
+        final Map<String, Field> fields = JSONPOJOMetaUtils.getDeepDeclaredFields(c);
+        int size = 2;
+        while (size < fields.size() * 2)
+        {
+            size <<= 1;
+        }
+        table = new FieldSlot[size];
+        mask = size - 1;
+        slots = new FieldSlot[fields.size()];
+        int index = 0;
+        for (Map.Entry<String, Field> entry : fields.entrySet())
+        {
+            FieldSlot slot = new FieldSlot(entry.getKey(), entry.getValue(), index);
+            slots[index++] = slot;
+            int i = slot.hash & mask;
+            while (table[i] != null)
+            {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot;
+        }
+    }
+
+    static JSONPOJOReadPlan forClass(Class c)
+    {
+        return plans.get(c);
+    }
+
+    // Same answer as getDeepDeclaredFields(c).get(key)
+    FieldSlot slot(String key)
+    {
+        final int hash = key.hashCode();
+        final FieldSlot[] t = table;
+        int i = hash & mask;
+        FieldSlot slot;
+        while ((slot = t[i]) != null)
+        {
+            if (slot.hash == hash && slot.name.equals(key))
+            {
+                return slot;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    static final class FieldSlot
+    {
+        final String name;
+        final int hash;
+        final int index;
+        final Field field;
+        final Class type;
+        final int kind;
+        // Generic type of the field when parameterized, and its template for markUntypedObjects()
+        final ParameterizedType genericType;
+        final JSONPOJOTypeTemplate typeTemplate;
+        private final MethodHandle setter;
+
+        private FieldSlot(String name, Field field, int index)
+        {
+            this.name = name;
+            this.hash = name.hashCode();
+            this.index = index;
+            this.field = field;
+            this.type = field.getType();
+
+            Type generic = field.getGenericType();
+            if (generic instanceof ParameterizedType)
+            {
+                genericType = (ParameterizedType) generic;
+                typeTemplate = JSONPOJOTypeTemplate.forType(generic, type);
+            }
+            else
+            {
+                genericType = null;
+                typeTemplate = null;
+            }
+
+            MethodHandle handle;
+            try
+            {
+                handle = MethodHandles.lookup().unreflectSetter(field);
+                handle = handle.asType(MethodType.methodType(void.class, Object.class, type.isPrimitive() ? type : Object.class));
+            }
+            catch (Exception e)
+            {   // Final or inaccessible field: leave it to Field.set(), which reports the problem
+                handle = null;
+            }
+            setter = handle;
+            kind = handle == null ? OBJECT : kindOf(type);
+        }
+
+        private static int kindOf(Class c)
+        {
+            if (c == String.class)
+            {
+                return STRING;
+            }
+            if (c == int.class)
+            {
+                return INT;
+            }
+            if (c == long.class)
+            {
+                return LONG;
+            }
+            if (c == boolean.class)
+            {
+                return BOOLEAN;
+            }
+            if (c == double.class)
+            {
+                return DOUBLE;
+            }
+            if (c == float.class)
+            {
+                return FLOAT;
+            }
+            if (c == short.class)
+            {
+                return SHORT;
+            }
+            if (c == byte.class)
+            {
+                return BYTE;
+            }
+            return OBJECT;
+        }
+
+        // Sets a reference value, or a boxed value on a primitive field
+        void set(Object target, Object value) throws Throwable
+        {
+            if (setter == null || type.isPrimitive())
+            {
+                field.set(target, value);
+            }
+            else
+            {
+                setter.invokeExact(target, value);
+            }
+        }
+
+        // Sets a number or boolean as parsed from JSON, returning false when the field needs the general conversion
+        boolean setParsed(Object target, Object value) throws Throwable
+        {
+            switch (kind)
+            {
+                case STRING:
+                    return false;
+                case BOOLEAN:
+                    if (value instanceof Boolean)
+                    {
+                        setter.invokeExact(target, ((Boolean) value).booleanValue());
+                        return true;
+                    }
+                    return false;
+                case OBJECT:
+                    return false;
+                default:
+                    break;
+            }
+            if (!(value instanceof Number))
+            {
+                return false;
+            }
+            final Number n = (Number) value;
+            switch (kind)
+            {
+                case INT:
+                    setter.invokeExact(target, n.intValue());
+                    return true;
+                case LONG:
+                    setter.invokeExact(target, n.longValue());
+                    return true;
+                case DOUBLE:
+                    setter.invokeExact(target, n.doubleValue());
+                    return true;
+                case FLOAT:
+                    setter.invokeExact(target, n.floatValue());
+                    return true;
+                case SHORT:
+                    setter.invokeExact(target, n.shortValue());
+                    return true;
+                case BYTE:
+                    setter.invokeExact(target, n.byteValue());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
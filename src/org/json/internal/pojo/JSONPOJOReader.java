@@ -3,12 +3,20 @@ package org.json.internal.pojo;
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import org.json.exceptions.JSONIOException;
 
@@ -36,17 +44,38 @@ public class JSONPOJOReader implements Closeable
     
     public static final String CLASSLOADER = "CLASSLOADER";
     
+    
+    public static final String STREAMING = "STREAMING";
+    // Scope of the cache sharing repeated strings: STRING_CACHE_GLOBAL (default), STRING_CACHE_READER or STRING_CACHE_NONE
+    public static final String STRING_CACHE = "STRING_CACHE";
+    
+    public static final String STRING_CACHE_GLOBAL = "GLOBAL";
+    
+    public static final String STRING_CACHE_READER = "READER";
+    
+    public static final String STRING_CACHE_NONE = "NONE";
+    // Number of entries of a per-reader string cache
+    public static final String STRING_CACHE_SIZE = "STRING_CACHE_SIZE";
+    // Converts the elements of a top-level array or collection in parallel when the JSON holds no @ref:
+    // Boolean.TRUE for the common ForkJoinPool, or the ForkJoinPool to use
+    public static final String PARALLEL = "PARALLEL";
+    
     static final String TYPE_NAME_MAP_REVERSE = "TYPE_NAME_MAP_REVERSE";
 
-    private static Map<Class, JsonClassReaderBase> BASE_READERS;
-    protected final Map<Class, JsonClassReaderBase> readers = new HashMap<Class, JsonClassReaderBase>(BASE_READERS);
+    private static volatile JSONPOJOClassDispatch<JsonClassReaderBase> BASE_READERS;
+    protected Map<Class, JsonClassReaderBase> readers;
+    JSONPOJOClassDispatch<JsonClassReaderBase> dispatch;  // shared closest-reader lookup, until readers is changed
     protected MissingFieldHandler missingFieldHandler;
-    protected final Set<Class> notCustom = new HashSet<Class>();
+    protected Set<Class> notCustom;
+    private boolean sharedReaders = true;   // readers / notCustom belong to the config until changed
+    private boolean sharedNotCustom = true;
     private static final Map<String, Factory> factory = new ConcurrentHashMap<String, Factory>();
-    private final Map<Long, JSONPOJOElement> objsRead = new HashMap<Long, JSONPOJOElement>();
+    private final JSONPOJOLongMap<JSONPOJOElement> objsRead = new JSONPOJOLongMap<JSONPOJOElement>();
     private final JSONPOJOFastPushbackReader input;
+    private JSONPOJOStringCache strings;
     
     private final Map<String, Object> args = new HashMap<String, Object>();
+    private boolean references = true;  // the last input parsed may hold an @ref
 
     static
     {
@@ -60,6 +89,14 @@ public class JSONPOJOReader implements Closeable
         assignInstantiator(Map.class, mapFactory);
         assignInstantiator(SortedMap.class, mapFactory);
 
+        JSONPOJOReaders.JavaTimeReader[] timeReaders = {new JSONPOJOReaders.InstantReader(), new JSONPOJOReaders.LocalDateReader(),
+                new JSONPOJOReaders.LocalDateTimeReader(), new JSONPOJOReaders.OffsetDateTimeReader(), new JSONPOJOReaders.ZonedDateTimeReader()};
+        Class[] timeClasses = {Instant.class, LocalDate.class, LocalDateTime.class, OffsetDateTime.class, ZonedDateTime.class};
+        for (int i = 0; i < timeClasses.length; i++)
+        {
+            assignInstantiator(timeClasses[i], new JavaTimeFactory(timeReaders[i]));
+        }
+
         Map<Class, JsonClassReaderBase> temp = new HashMap<Class, JsonClassReaderBase>();
         temp.put(String.class, new JSONPOJOReaders.StringReader());
         temp.put(Date.class, new JSONPOJOReaders.DateReader());
@@ -76,7 +113,11 @@ public class JSONPOJOReader implements Closeable
         temp.put(Class.class, new JSONPOJOReaders.ClassReader());
         temp.put(StringBuilder.class, new JSONPOJOReaders.StringBuilderReader());
         temp.put(StringBuffer.class, new JSONPOJOReaders.StringBufferReader());
-        BASE_READERS = temp;
+        for (int i = 0; i < timeClasses.length; i++)
+        {
+            temp.put(timeClasses[i], timeReaders[i]);
+        }
+        BASE_READERS = new JSONPOJOClassDispatch<JsonClassReaderBase>(Collections.unmodifiableMap(temp));
     }
 
     
@@ -158,7 +199,7 @@ public class JSONPOJOReader implements Closeable
     }
 
     
-    public static class MapFactory implements ClassFactory
+    public static class MapFactory implements ClassFactory, ClassFactoryEx
     {
         
         public Object newInstance(Class c)
@@ -173,6 +214,40 @@ public class JSONPOJOReader implements Closeable
             }
             throw new JSONIOException("MapFactory handed Class for which it was not expecting: " + c.getName());
         }
+
+        // Sized for the @keys of the JSON object, so the entries go in without rehashing
+        public Object newInstance(Class c, Map args)
+        {
+            if (!SortedMap.class.isAssignableFrom(c) && Map.class.isAssignableFrom(c))
+            {
+                return new LinkedHashMap(mapCapacity((JSONPOJOElement) args.get("jsonObj")));
+            }
+            return newInstance(c);
+        }
+    }
+
+    // Initial capacity of a hash map holding the entries listed in the @keys of jsonObj, or the default one
+    static int mapCapacity(JSONPOJOElement jsonObj)
+    {
+        final Object keys = jsonObj == null ? null : jsonObj.get("@keys");
+        final int size = keys instanceof Object[] ? ((Object[]) keys).length : 0;
+        return size < 12 ? 16 : (int) (size / 0.75f) + 1;
+    }
+
+    // java.time classes cannot be instantiated empty, so an instance is the value read from the JSON object
+    static class JavaTimeFactory implements ClassFactoryEx
+    {
+        private final JSONPOJOReaders.JavaTimeReader reader;
+
+        JavaTimeFactory(JSONPOJOReaders.JavaTimeReader reader)
+        {
+            this.reader = reader;
+        }
+
+        public Object newInstance(Class c, Map args)
+        {
+            return reader.read(args.get("jsonObj"), null, null);
+        }
     }
 
     
@@ -190,18 +265,43 @@ public class JSONPOJOReader implements Closeable
     
     public void addReader(Class c, JsonClassReaderBase reader)
     {
+        if (sharedReaders)
+        {
+            readers = new HashMap<Class, JsonClassReaderBase>(readers);
+            sharedReaders = false;
+            dispatch = null;
+        }
         readers.put(c, reader);
     }
 
     
-    public static void addReaderPermanent(Class c, JsonClassReaderBase reader)
+    public static synchronized void addReaderPermanent(Class c, JsonClassReaderBase reader)
+    {   // Copy on write, so readers already running keep a consistent view, and start over with an empty lookup cache
+        Map<Class, JsonClassReaderBase> temp = new HashMap<Class, JsonClassReaderBase>(BASE_READERS.handlers);
+        temp.put(c, reader);
+        BASE_READERS = new JSONPOJOClassDispatch<JsonClassReaderBase>(Collections.unmodifiableMap(temp));
+    }
+
+    
+    static Map<Class, JsonClassReaderBase> getBaseReaders()
     {
-        BASE_READERS.put(c, reader);
+        return BASE_READERS.handlers;
+    }
+
+    // Looks up, ahead of the first read, the permanent custom reader of class c
+    static void prewarm(Class c)
+    {
+        BASE_READERS.get(c);
     }
 
     
     public void addNotCustomReader(Class c)
     {
+        if (sharedNotCustom)
+        {
+            notCustom = new HashSet<Class>(notCustom);
+            sharedNotCustom = false;
+        }
         notCustom.add(c);
     }
 
@@ -264,6 +364,50 @@ public class JSONPOJOReader implements Closeable
     }
 
     
+    public static <T> Iterator<T> iterate(InputStream inputStream, Class<T> type)
+    {
+        return iterate(inputStream, type, null);
+    }
+
+    
+    public static <T> Iterator<T> iterate(InputStream inputStream, Class<T> type, Map<String, Object> optionalArgs)
+    {
+        return new JSONPOJOReader(inputStream, iterationArgs(optionalArgs)).iterator(type);
+    }
+
+    
+    public static <T> Stream<T> stream(InputStream inputStream, Class<T> type)
+    {
+        return stream(inputStream, type, null);
+    }
+
+    
+    public static <T> Stream<T> stream(InputStream inputStream, Class<T> type, Map<String, Object> optionalArgs)
+    {
+        return new JSONPOJOReader(inputStream, iterationArgs(optionalArgs)).iterator(type).stream();
+    }
+
+    // Elements are always bound to Java objects, whatever USE_MAPS says
+    static Map<String, Object> iterationArgs(Map<String, Object> optionalArgs)
+    {
+        Map<String, Object> args = new HashMap<String, Object>();
+        if (optionalArgs != null)
+        {
+            args.putAll(optionalArgs);
+        }
+        args.put(USE_MAPS, false);
+        return args;
+    }
+
+    
+    <T> JSONPOJOArrayIterator<T> iterator(Class<T> type)
+    {
+        JSONPOJOParser parser = new JSONPOJOParser(input, objsRead, getArgs(), strings);
+        JSONPOJOObjectResolver resolver = new JSONPOJOObjectResolver(this, (ClassLoader)args.get(CLASSLOADER));
+        return new JSONPOJOArrayIterator<T>(this, input, parser, new JSONPOJOStreamBinder(input, parser, resolver), type);
+    }
+
+    
     public static Map jsonToMaps(String json)
     {
         return jsonToMaps(json, null);
@@ -328,6 +472,10 @@ public class JSONPOJOReader implements Closeable
     public JSONPOJOReader()
     {
         input = null;
+        readers = new HashMap<Class, JsonClassReaderBase>(BASE_READERS.handlers);
+        notCustom = new HashSet<Class>();
+        sharedReaders = false;
+        sharedNotCustom = false;
         getArgs().put(USE_MAPS, false);
         getArgs().put(CLASSLOADER, JSONPOJOReader.class.getClassLoader());
     }
@@ -357,89 +505,55 @@ public class JSONPOJOReader implements Closeable
 
     public JSONPOJOReader(InputStream inp, Map<String, Object> optionalArgs)
     {
-        initializeFromArgs(optionalArgs);
+        this(inp, new JSONPOJOReaderConfig(optionalArgs));
+    }
 
-        try
-        {
-            input = new JSONPOJOFastPushbackBufferedReader(new InputStreamReader(inp, "UTF-8"));
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new JSONIOException("Your JVM does not support UTF-8.  Get a better JVM.", e);
-        }
+    JSONPOJOReader(InputStream inp, JSONPOJOReaderConfig config)
+    {
+        initializeFromConfig(config);
+        input = new JSONPOJOFastPushbackByteReader(inp);
     }
 
     public JSONPOJOReader(String inp, Map<String, Object> optionalArgs)
     {
-        initializeFromArgs(optionalArgs);
-        try
-        {
-            byte[] bytes = inp.getBytes("UTF-8");
-            input = new JSONPOJOFastPushbackBufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), "UTF-8"));
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new JSONIOException("Could not convert JSON to Maps because your JVM does not support UTF-8", e);
-        }
+        this(inp, new JSONPOJOReaderConfig(optionalArgs));
+    }
+
+    JSONPOJOReader(String inp, JSONPOJOReaderConfig config)
+    {
+        initializeFromConfig(config);
+        input = new JSONPOJOFastPushbackByteReader(inp.getBytes(StandardCharsets.UTF_8));
     }
 
     public JSONPOJOReader(byte[] inp, Map<String, Object> optionalArgs)
     {
-        initializeFromArgs(optionalArgs);
-        try
-        {
-            input = new JSONPOJOFastPushbackBufferedReader(new InputStreamReader(new ByteArrayInputStream(inp), "UTF-8"));
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new JSONIOException("Could not convert JSON to Maps because your JVM does not support UTF-8", e);
-        }
+        initializeFromConfig(new JSONPOJOReaderConfig(optionalArgs));
+        input = new JSONPOJOFastPushbackByteReader(inp);
     }
 
-    private void initializeFromArgs(Map<String, Object> optionalArgs)
+    private void initializeFromConfig(JSONPOJOReaderConfig config)
     {
-        if (optionalArgs == null)
-        {
-            optionalArgs = new HashMap();
-        }
         Map<String, Object> args = getArgs();
-        args.putAll(optionalArgs);
+        args.putAll(config.args);
         args.put(JSON_READER, this);
-        if (!args.containsKey(CLASSLOADER))
-        {
-            args.put(CLASSLOADER, JSONPOJOReader.class.getClassLoader());
-        }
-        Map<String, String> typeNames = (Map<String, String>) args.get(TYPE_NAME_MAP);
+        setMissingFieldHandler(config.missingFieldHandler);
+        dispatch = config.customReaders != null ? config.readers(BASE_READERS) : BASE_READERS;
+        readers = dispatch.handlers;
+        notCustom = config.notCustom;
 
-        if (typeNames != null)
-        { // Reverse the Map (this allows the users to only have a Map from type to short-hand name,
-            // and not keep a 2nd map from short-hand name to type.
-            Map<String, String> typeNameMap = new HashMap<String, String>();
-            for (Map.Entry<String, String> entry : typeNames.entrySet())
-            {
-                typeNameMap.put(entry.getValue(), entry.getKey());
-            }
-            args.put(TYPE_NAME_MAP_REVERSE, typeNameMap); // replace with our reversed Map.
+        Object scope = args.get(STRING_CACHE);
+        if (STRING_CACHE_NONE.equals(scope))
+        {
+            strings = null;
         }
-
-        setMissingFieldHandler((MissingFieldHandler) args.get(MISSING_FIELD_HANDLER));
-
-        Map<Class, JsonClassReaderBase> customReaders = (Map<Class, JsonClassReaderBase>) args.get(CUSTOM_READER_MAP);
-        if (customReaders != null)
+        else if (STRING_CACHE_READER.equals(scope))
         {
-            for (Map.Entry<Class, JsonClassReaderBase> entry : customReaders.entrySet())
-            {
-                addReader(entry.getKey(), entry.getValue());
-            }
+            Object size = args.get(STRING_CACHE_SIZE);
+            strings = new JSONPOJOStringCache(size instanceof Number ? ((Number) size).intValue() : JSONPOJOStringCache.DEFAULT_SIZE);
         }
-
-        Iterable<Class> notCustomReaders = (Iterable<Class>) args.get(NOT_CUSTOM_READER_MAP);
-        if (notCustomReaders != null)
+        else
         {
-            for (Class c : notCustomReaders)
-            {
-                addNotCustomReader(c);
-            }
+            strings = JSONPOJOStringCache.GLOBAL;
         }
     }
 
@@ -448,6 +562,12 @@ public class JSONPOJOReader implements Closeable
         return objsRead;
     }
 
+    
+    JSONPOJOLongMap<JSONPOJOElement> objectsRead()
+    {
+        return objsRead;
+    }
+
     public Object getRefTarget(JSONPOJOElement jObj)
     {
         if (!jObj.isReference())
@@ -467,12 +587,17 @@ public class JSONPOJOReader implements Closeable
     
     public Object readObject()
     {
-        JSONPOJOParser parser = new JSONPOJOParser(input, objsRead, getArgs());
+        if (streaming())
+        {
+            return readStreaming();
+        }
+        JSONPOJOParser parser = new JSONPOJOParser(input, objsRead, getArgs(), strings);
         JSONPOJOElement<String, Object> root = new JSONPOJOElement();
         Object o;
         try
         {
             o = parser.readValue(root);
+            references = parser.hasReferences();
             if (o == JSONPOJOParser.EMPTY_OBJECT)
             {
                 return new JSONPOJOElement();
@@ -512,6 +637,7 @@ public class JSONPOJOReader implements Closeable
     public Object jsonObjectsToJava(JSONPOJOElement root)
     {
         getArgs().put(USE_MAPS, false);
+        references = true;  // Not parsed here, so nothing is known of its @refs
         return convertParsedMapsToJava(root);
     }
 
@@ -520,6 +646,44 @@ public class JSONPOJOReader implements Closeable
         return Boolean.TRUE.equals(getArgs().get(USE_MAPS));
     }
 
+    // The pool to convert on, when PARALLEL is asked for and the elements converted cannot refer to each other.
+    // Subclasses may hook the resolver, which then sees only part of the graph, so they convert on one thread.
+    private ForkJoinPool parallelPool()
+    {
+        final Object parallel = getArgs().get(PARALLEL);
+        if (references || useMaps() || getClass() != JSONPOJOReader.class)
+        {
+            return null;
+        }
+        final ForkJoinPool pool = parallel instanceof ForkJoinPool ? (ForkJoinPool) parallel :
+                Boolean.TRUE.equals(parallel) ? ForkJoinPool.commonPool() : null;
+        return pool == null || pool.getParallelism() < 2 ? null : pool;
+    }
+
+    // Subclasses may hook convertParsedMapsToJava(), which binding while parsing would skip
+    private boolean streaming()
+    {
+        return Boolean.TRUE.equals(getArgs().get(STREAMING)) && !useMaps() && getClass() == JSONPOJOReader.class;
+    }
+
+    
+    private Object readStreaming()
+    {
+        try
+        {
+            JSONPOJOParser parser = new JSONPOJOParser(input, objsRead, getArgs(), strings);
+            JSONPOJOObjectResolver resolver = new JSONPOJOObjectResolver(this, (ClassLoader)args.get(CLASSLOADER));
+            Object graph = new JSONPOJOStreamBinder(input, parser, resolver).readRoot();
+            resolver.cleanup();
+            resetReaders();
+            return graph;
+        }
+        catch (Exception e)
+        {
+            throw readFailure(e);
+        }
+    }
+
     
     ClassLoader getClassLoader()
     {
@@ -533,28 +697,56 @@ public class JSONPOJOReader implements Closeable
         {
             JSONPOJOResolver resolver = useMaps() ? new JSONPOJOMapResolver(this) : new JSONPOJOObjectResolver(this, (ClassLoader)args.get(CLASSLOADER));
             resolver.createJavaObjectInstance(Object.class, root);
-            Object graph = resolver.convertMapsToObjects((JSONPOJOElement<String, Object>) root);
+            final ForkJoinPool pool = parallelPool();
+            Object graph = pool != null ? new JSONPOJOParallelConverter((JSONPOJOObjectResolver) resolver, pool).convert(root)
+                    : resolver.convertMapsToObjects((JSONPOJOElement<String, Object>) root);
             resolver.cleanup();
-            readers.clear();
+            resetReaders();
             return graph;
         }
         catch (Exception e)
         {
-            try
-            {
-                close();
-            }
-            catch (Exception ignored)
-            {   // Exception handled in close()
-            }
-            if (e instanceof JSONIOException)
-            {
-                throw (JSONIOException)e;
-            }
-            throw new JSONIOException(getErrorMessage(e.getMessage()), e);
+            throw readFailure(e);
+        }
+    }
+
+    private void resetReaders()
+    {
+        if (sharedReaders)
+        {
+            readers = new HashMap<Class, JsonClassReaderBase>();
+            sharedReaders = false;
+            dispatch = null;
+        }
+        else
+        {
+            readers.clear();
         }
     }
 
+    
+    static boolean hasFactory(Class c)
+    {
+        return factory.containsKey(c.getName());
+    }
+
+    // Closes the input and describes a failure while converting JSON to Java
+    JSONIOException readFailure(Exception e)
+    {
+        try
+        {
+            close();
+        }
+        catch (Exception ignored)
+        {   // Exception handled in close()
+        }
+        if (e instanceof JSONIOException)
+        {
+            return (JSONIOException)e;
+        }
+        return new JSONIOException(getErrorMessage(e.getMessage()), e);
+    }
+
     public static Object newInstance(Class c)
     {
         if (factory.containsKey(c.getName()))
@@ -562,7 +754,7 @@ public class JSONPOJOReader implements Closeable
             ClassFactory cf = (ClassFactory) factory.get(c.getName());
             return cf.newInstance(c);
         }
-        return JSONPOJOMetaUtils.newInstance(c);
+        return newAdaptedInstance(c);
     }
 
     public static Object newInstance(Class c, JSONPOJOElement jsonObject)
@@ -582,7 +774,23 @@ public class JSONPOJOReader implements Closeable
             }
             throw new JSONIOException("Unknown instantiator (Factory) class.  Must subclass ClassFactoryEx or ClassFactory, found: " + cf.getClass().getName());
         }
-        return JSONPOJOMetaUtils.newInstance(c);
+        if (c == LinkedHashMap.class)
+        {
+            return new LinkedHashMap(mapCapacity(jsonObject));
+        }
+        if (c == HashMap.class)
+        {
+            return new HashMap(mapCapacity(jsonObject));
+        }
+        return newAdaptedInstance(c);
+    }
+
+    // Through the generated adapter of c when it has one, else through reflection
+    private static Object newAdaptedInstance(Class c)
+    {
+        final JSONPOJOClassAdapter adapter = JSONPOJOAdapters.forClass(c);
+        final Object instance = adapter == null ? null : adapter.newInstance();
+        return instance != null ? instance : JSONPOJOMetaUtils.newInstance(c);
     }
 
     public void close()
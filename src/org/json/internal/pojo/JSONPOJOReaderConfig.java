@@ -0,0 +1,117 @@
+package org.json.internal.pojo;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.internal.pojo.JSONPOJOReader.JsonClassReaderBase;
+import org.json.internal.pojo.JSONPOJOReader.MissingFieldHandler;
+
+
+public final class JSONPOJOReaderConfig
+{
+    final Map<String, Object> args;
+    // Custom readers, added over the permanent ones current when a reader is created, or null for none
+    final Map<Class, JsonClassReaderBase> customReaders;
+    // The custom readers added over the permanent ones, shared by the readers of this config until those change
+    private volatile JSONPOJOClassDispatch<JsonClassReaderBase> readers;
+    final Set<Class> notCustom;
+    final MissingFieldHandler missingFieldHandler;
+
+    
+    public JSONPOJOReaderConfig(Map<String, Object> optionalArgs)
+    {
+        Map<String, Object> args = new HashMap<String, Object>();
+        if (optionalArgs != null)
+        {
+            args.putAll(optionalArgs);
+        }
+        args.remove(JSONPOJOReader.JSON_READER);
+        args.remove(JSONPOJOReader.OBJECT_RESOLVER);
+        if (!args.containsKey(JSONPOJOReader.CLASSLOADER))
+        {
+            args.put(JSONPOJOReader.CLASSLOADER, JSONPOJOReader.class.getClassLoader());
+        }
+        Map<String, String> typeNames = (Map<String, String>) args.get(JSONPOJOReader.TYPE_NAME_MAP);
+
+        if (typeNames != null)
+        { // Reverse the Map (this allows the users to only have a Map from type to short-hand name,
+            // and not keep a 2nd map from short-hand name to type.
+            Map<String, String> typeNameMap = new HashMap<String, String>();
+            for (Map.Entry<String, String> entry : typeNames.entrySet())
+            {
+                typeNameMap.put(entry.getValue(), entry.getKey());
+            }
+            args.put(JSONPOJOReader.TYPE_NAME_MAP_REVERSE, Collections.unmodifiableMap(typeNameMap)); // replace with our reversed Map.
+        }
+
+        missingFieldHandler = (MissingFieldHandler) args.get(JSONPOJOReader.MISSING_FIELD_HANDLER);
+
+        Map<Class, JsonClassReaderBase> customReaders = (Map<Class, JsonClassReaderBase>) args.get(JSONPOJOReader.CUSTOM_READER_MAP);
+        this.customReaders = customReaders == null || customReaders.isEmpty() ? null : Collections.unmodifiableMap(new HashMap<Class, JsonClassReaderBase>(customReaders));
+
+        Set<Class> notCustom = new HashSet<Class>();
+        Iterable<Class> notCustomReaders = (Iterable<Class>) args.get(JSONPOJOReader.NOT_CUSTOM_READER_MAP);
+        if (notCustomReaders != null)
+        {
+            for (Class c : notCustomReaders)
+            {
+                notCustom.add(c);
+            }
+        }
+        this.notCustom = Collections.unmodifiableSet(notCustom);
+
+        this.args = Collections.unmodifiableMap(args);
+    }
+
+    // The dispatch of the custom readers over base, the permanent ones, made again once base has been replaced
+    JSONPOJOClassDispatch<JsonClassReaderBase> readers(JSONPOJOClassDispatch<JsonClassReaderBase> base)
+    {
+        JSONPOJOClassDispatch<JsonClassReaderBase> readers = this.readers;
+        if (readers == null || readers.base != base)
+        {
+            readers = base.with(customReaders);
+            this.readers = readers;
+        }
+        return readers;
+    }
+
+    
+    public Map<String, Object> getArgs()
+    {
+        return args;
+    }
+
+    
+    public JSONPOJOReader newReader(InputStream input)
+    {
+        return new JSONPOJOReader(input, this);
+    }
+
+    
+    public JSONPOJOReader newReader(String json)
+    {
+        return new JSONPOJOReader(json, this);
+    }
+
+    
+    public Object jsonToJava(String json)
+    {
+        JSONPOJOReader jr = newReader(json);
+        Object obj = jr.readObject();
+        jr.close();
+        return obj;
+    }
+
+    
+    public Object jsonToJava(InputStream input)
+    {
+        JSONPOJOReader jr = newReader(input);
+        Object obj = jr.readObject();
+        jr.close();
+        return obj;
+    }
+}
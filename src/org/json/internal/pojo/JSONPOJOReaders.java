@@ -3,6 +3,12 @@ package org.json.internal.pojo;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Deque;
@@ -122,7 +128,7 @@ public class JSONPOJOReaders
                 {
                     throw new JSONIOException("Calendar missing 'time' field");
                 }
-                Date date = JSONPOJOMetaUtils.dateFormat.get().parse(time);
+                Date date = JSONPOJODates.parseCalendarTime(time);
                 Class c;
                 if (jObj.getTarget() != null)
                 {
@@ -190,6 +196,11 @@ public class JSONPOJOReaders
             {
                 return null;
             }
+            Date iso = JSONPOJODates.parseIso(dateStr);
+            if (iso != null)
+            {
+                return iso;
+            }
 
             // Determine which date pattern (Matcher) to use
             Matcher matcher = datePattern1.matcher(dateStr);
@@ -786,6 +797,94 @@ public class JSONPOJOReaders
         }
     }
 
+    // Reads a java.time value from its ISO-8601 text, given bare or as the 'value' of an object
+    public abstract static class JavaTimeReader implements JSONPOJOReader.JsonClassReaderEx
+    {
+        public Object read(Object o, Deque<JSONPOJOElement<String, Object>> stack, Map<String, Object> args)
+        {
+            JSONPOJOElement jObj = null;
+            if (o instanceof JSONPOJOElement)
+            {
+                jObj = (JSONPOJOElement) o;
+                o = jObj.get("value");
+            }
+            Object value = o instanceof String ? parseText(((String) o).trim()) : fromNumber(o);
+            if (jObj != null)
+            {
+                jObj.target = value;
+            }
+            return value;
+        }
+
+        private Object parseText(String text)
+        {
+            if (text.isEmpty())
+            {
+                return null;
+            }
+            try
+            {
+                return parse(text);
+            }
+            catch (DateTimeParseException e)
+            {
+                throw new JSONIOException("Unable to parse date/time: " + text, e);
+            }
+        }
+
+        protected abstract Object parse(String text);
+
+        protected Object fromNumber(Object o)
+        {
+            throw new JSONIOException("Unable to parse date/time, encountered unknown object: " + o);
+        }
+    }
+
+    public static class InstantReader extends JavaTimeReader
+    {
+        protected Object parse(String text)
+        {
+            return Instant.parse(text);
+        }
+
+        protected Object fromNumber(Object o)
+        {   // Epoch millis, as a Date is written
+            return o instanceof Long ? Instant.ofEpochMilli((Long) o) : super.fromNumber(o);
+        }
+    }
+
+    public static class LocalDateReader extends JavaTimeReader
+    {
+        protected Object parse(String text)
+        {
+            return LocalDate.parse(text);
+        }
+    }
+
+    public static class LocalDateTimeReader extends JavaTimeReader
+    {
+        protected Object parse(String text)
+        {
+            return LocalDateTime.parse(text);
+        }
+    }
+
+    public static class OffsetDateTimeReader extends JavaTimeReader
+    {
+        protected Object parse(String text)
+        {
+            return OffsetDateTime.parse(text);
+        }
+    }
+
+    public static class ZonedDateTimeReader extends JavaTimeReader
+    {
+        protected Object parse(String text)
+        {
+            return ZonedDateTime.parse(text);
+        }
+    }
+
     // ========== Maintain dependency knowledge in once place, down here =========
     static Class classForName(String name, ClassLoader classLoader)
     {
@@ -9,7 +9,6 @@ import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -33,6 +32,8 @@ abstract class JSONPOJOResolver
     private final static Map<String, Class> coercedTypes = new LinkedHashMap<String, Class>();
     // store the missing field found during deserialization to notify any client after the complete resolution is done
     protected final Collection<Missingfields> missingFields = new ArrayList<JSONPOJOResolver.Missingfields>();
+    // Stand-ins for objects referenced before their @id was read, when fed by JSONPOJOStreamBinder
+    Map<Long, JSONPOJOElement> forwardRefs;
 
     static {
         coercedTypes.put("java.util.Arrays$ArrayList", ArrayList.class);
@@ -56,14 +57,17 @@ abstract class JSONPOJOResolver
     static final class UnresolvedReference
     {
         private final JSONPOJOElement referencingObj;
-        private String field;
+        // The field to patch, resolved when the reference was met, and its slot when it has one
+        private Field field;
+        private JSONPOJOReadPlan.FieldSlot slot;
         private final long refId;
         private int index = -1;
 
-        UnresolvedReference(JSONPOJOElement referrer, String fld, long id)
+        UnresolvedReference(JSONPOJOElement referrer, Field fld, JSONPOJOReadPlan.FieldSlot slot, long id)
         {
             referencingObj = referrer;
             field = fld;
+            this.slot = slot;
             refId = id;
         }
 
@@ -94,10 +98,19 @@ abstract class JSONPOJOResolver
     private static final class NullClass implements JSONPOJOReader.JsonClassReaderBase  { }
 
     protected JSONPOJOResolver(JSONPOJOReader reader)
+    {
+        this(reader, true);
+    }
+
+    // With register false, a resolver of part of the graph, which leaves OBJECT_RESOLVER to the resolver of the whole
+    JSONPOJOResolver(JSONPOJOReader reader, boolean register)
     {
         this.reader = reader;
         Map<String, Object> optionalArgs = reader.getArgs();
-        optionalArgs.put(JSONPOJOReader.OBJECT_RESOLVER, this);
+        if (register)
+        {
+            optionalArgs.put(JSONPOJOReader.OBJECT_RESOLVER, this);
+        }
         useMaps = Boolean.TRUE.equals(optionalArgs.get(JSONPOJOReader.USE_MAPS));
         unknownClass = optionalArgs.containsKey(JSONPOJOReader.UNKNOWN_OBJECT) ? optionalArgs.get(JSONPOJOReader.UNKNOWN_OBJECT) : null;
         failOnUnknownType = Boolean.TRUE.equals(optionalArgs.get(JSONPOJOReader.FAIL_ON_UNKNOWN_TYPE));
@@ -113,7 +126,13 @@ abstract class JSONPOJOResolver
     {
         final Deque<JSONPOJOElement<String, Object>> stack = new ArrayDeque<JSONPOJOElement<String, Object>>();
         stack.addFirst(root);
+        traverse(stack);
+        return root.target;
+    }
 
+    // Converts the JSON objects on the stack, and those they push while being converted
+    void traverse(final Deque<JSONPOJOElement<String, Object>> stack)
+    {
         while (!stack.isEmpty())
         {
             final JSONPOJOElement<String, Object> jsonObj = stack.removeFirst();
@@ -143,7 +162,6 @@ abstract class JSONPOJOResolver
                 }
             }
         }
-        return root.target;
     }
 
     protected abstract Object readIfMatching(final Object o, final Class compType, final Deque<JSONPOJOElement<String, Object>> stack);
@@ -155,10 +173,19 @@ abstract class JSONPOJOResolver
     protected abstract void traverseArray(Deque<JSONPOJOElement<String, Object>> stack, JSONPOJOElement<String, Object> jsonObj);
 
     protected void cleanup()
+    {
+        cleanup(false);
+    }
+
+    // keepObjectsRead leaves the objects read with an @id for the input that follows to refer to
+    void cleanup(boolean keepObjectsRead)
     {
         patchUnresolvedReferences();
         rehashMaps();
-        reader.getObjectsRead().clear();
+        if (!keepObjectsRead)
+        {
+            reader.getObjectsRead().clear();
+        }
         unresolvedRefs.clear();
         prettyMaps.clear();
         readerCache.clear();
@@ -176,6 +203,7 @@ abstract class JSONPOJOResolver
                 missingFieldHandler.fieldMissing(mf.target, mf.fieldName, mf.value);
             }
         }//else no handler so ignore.
+        missingFields.clear();
     }
 
     
@@ -324,7 +352,7 @@ abstract class JSONPOJOResolver
                 }
                 else
                 {
-                    mate = newInstance(c, jsonObj);
+                    mate = instantiate(c, jsonObj);
                 }
             }
         }
@@ -372,13 +400,19 @@ abstract class JSONPOJOResolver
             }
             else
             {
-                mate = newInstance(clazz, jsonObj);
+                mate = instantiate(clazz, jsonObj);
             }
         }
         jsonObj.target = mate;
         return jsonObj.target;
     }
 
+    // A new instance of c for jsonObj, which a resolver binding objects through their constructors fills as well
+    Object instantiate(Class c, JSONPOJOElement jsonObj)
+    {
+        return newInstance(c, jsonObj);
+    }
+
     protected Object coerceCertainTypes(String type)
     {
         Class clazz = coercedTypes.get(type);
@@ -392,9 +426,16 @@ abstract class JSONPOJOResolver
 
     protected JSONPOJOElement getReferencedObj(Long ref)
     {
-        JSONPOJOElement refObject = reader.getObjectsRead().get(ref);
+        JSONPOJOElement refObject = reader.objectsRead().get(ref.longValue());
         if (refObject == null)
         {
+            if (forwardRefs != null)
+            {   // Streaming: the object may still be ahead in the input, so stand in for it until its @id is read
+                refObject = new JSONPOJOElement();
+                reader.objectsRead().put(ref.longValue(), refObject);
+                forwardRefs.put(ref, refObject);
+                return refObject;
+            }
             throw new JSONIOException("Forward reference @ref: " + ref + ", but no object defined (@id) with that value");
         }
         return refObject;
@@ -402,37 +443,20 @@ abstract class JSONPOJOResolver
 
     protected JSONPOJOReader.JsonClassReaderBase getCustomReader(Class c)
     {
+        JSONPOJOClassDispatch<JSONPOJOReader.JsonClassReaderBase> dispatch = reader.dispatch;
+        if (dispatch != null && dispatch.handlers == getReaders())
+        {   // Readers unchanged since the reader was created: use the lookup shared by all readers
+            return dispatch.get(c);
+        }
         JSONPOJOReader.JsonClassReaderBase reader = readerCache.get(c);
         if (reader == null)
         {
-            reader = forceGetCustomReader(c);
-            readerCache.put(c, reader);
+            reader = JSONPOJOClassDispatch.closest(getReaders(), c);
+            readerCache.put(c, reader == null ? nullReader : reader);
         }
         return reader == nullReader ? null : reader;
     }
 
-    private JSONPOJOReader.JsonClassReaderBase forceGetCustomReader(Class c)
-    {
-        JSONPOJOReader.JsonClassReaderBase closestReader = nullReader;
-        int minDistance = Integer.MAX_VALUE;
-
-        for (Map.Entry<Class, JSONPOJOReader.JsonClassReaderBase> entry : getReaders().entrySet())
-        {
-            Class clz = entry.getKey();
-            if (clz == c)
-            {
-                return entry.getValue();
-            }
-            int distance = JSONPOJOMetaUtils.getDistance(clz, c);
-            if (distance < minDistance)
-            {
-                minDistance = distance;
-                closestReader = entry.getValue();
-            }
-        }
-        return closestReader;
-    }
-
     
     private Object getEnum(Class c, JSONPOJOElement jsonObj)
     {
@@ -476,13 +500,13 @@ abstract class JSONPOJOResolver
 
     
     protected void patchUnresolvedReferences()
-    {
-        Iterator i = unresolvedRefs.iterator();
-        while (i.hasNext())
+    {   // One pass over all of them, then one clear(): removing each from the front of the list as it was patched
+        // made this quadratic in the number of forward references
+        final JSONPOJOLongMap<JSONPOJOElement> objectsRead = reader.objectsRead();
+        for (UnresolvedReference ref : unresolvedRefs)
         {
-            UnresolvedReference ref = (UnresolvedReference) i.next();
             Object objToFix = ref.referencingObj.target;
-            JSONPOJOElement objReferenced = reader.getObjectsRead().get(ref.refId);
+            JSONPOJOElement objReferenced = objectsRead.get(ref.refId);
 
             if (ref.index >= 0)
             {    // Fix []'s and Collections containing a forward reference.
@@ -503,22 +527,28 @@ abstract class JSONPOJOResolver
             }
             else
             {    // Fix field forward reference
-                Field field = JSONPOJOMetaUtils.getField(objToFix.getClass(), ref.field);
-                if (field != null)
+                try
                 {
-                    try
+                    if (ref.slot != null)
                     {
-                        field.set(objToFix, objReferenced.target);               // patch field here
+                        ref.slot.set(objToFix, objReferenced.target);
                     }
-                    catch (Exception e)
+                    else
                     {
-                        throw new JSONIOException("Error setting field while resolving references '" + field.getName() + "', @ref = " + ref.refId, e);
+                        ref.field.set(objToFix, objReferenced.target);          // patch field here
                     }
                 }
+                catch (Error e)
+                {
+                    throw e;
+                }
+                catch (Throwable e)
+                {
+                    throw new JSONIOException("Error setting field while resolving references '" + ref.field.getName() + "', @ref = " + ref.refId, e);
+                }
             }
-
-            i.remove();
         }
+        unresolvedRefs.clear();
     }
 
     
@@ -0,0 +1,492 @@
+package org.json.internal.pojo;
+
+import java.lang.reflect.Modifier;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+
+// JSONPOJOElement for an object whose class is known while it is parsed. The values of the class's fields live
+// in an array indexed by the field slots of its read plan, and @ref in a field of its own, so an object costs one
+// small array rather than a hash table with an entry per field. Keys that are no field of the class go to the
+// map as usual. Map operations the slots do not support first turn it back into a plain JSONPOJOElement.
+final class JSONPOJOSlotElement extends JSONPOJOElement<String, Object>
+{
+    private static final Object NULL_VALUE = new Object();  // stands in for a null value, as null marks a free slot
+
+    // Read plan of the classes worth a compact element, null for the others
+    private static final ClassValue<JSONPOJOReadPlan> compactPlans = new ClassValue<JSONPOJOReadPlan>()
+    {
+        protected JSONPOJOReadPlan computeValue(Class<?> c)
+        {
+            if (c == Object.class || c == Class.class || c.isArray() || c.isPrimitive() || c.isInterface() ||
+                    Modifier.isAbstract(c.getModifiers()) || c.isEnum() || JSONPOJOMetaUtils.isLogicalPrimitive(c) ||
+                    Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c))
+            {
+                return null;
+            }
+            final JSONPOJOReadPlan plan = JSONPOJOReadPlan.forClass(c);
+            return plan.slots.length == 0 ? null : plan;
+        }
+    };
+
+    private final Class clazz;
+    private JSONPOJOReadPlan plan;      // null once turned into a plain element
+    private Object[] values;
+    private int count = 0;
+    private Long ref;
+
+    private JSONPOJOSlotElement(Class clazz, JSONPOJOReadPlan plan)
+    {
+        this.clazz = clazz;
+        this.plan = plan;
+        this.values = new Object[plan.slots.length];
+    }
+
+    // A compact element for an object of class c, or null when c is better read into a plain one
+    static JSONPOJOSlotElement forClass(Class c)
+    {
+        final JSONPOJOReadPlan plan = c == null ? null : compactPlans.get(c);
+        return plan == null ? null : new JSONPOJOSlotElement(c, plan);
+    }
+
+    // True while the values are in the slots of plan
+    boolean isCompact(JSONPOJOReadPlan plan)
+    {
+        return plan != null && this.plan == plan;
+    }
+
+    boolean isCompact()
+    {
+        return plan != null;
+    }
+
+    // Declared class of a field, when an object in it can be read compact: a field of the class that is not parameterized
+    Class fieldClass(String key)
+    {
+        if (plan == null)
+        {
+            return null;
+        }
+        final JSONPOJOReadPlan.FieldSlot slot = plan.slot(key);
+        return slot == null || slot.genericType != null ? null : slot.type;
+    }
+
+    boolean hasValue(int index)
+    {
+        return values[index] != null;
+    }
+
+    Object value(int index)
+    {
+        final Object value = values[index];
+        return value == NULL_VALUE ? null : value;
+    }
+
+    // The entries that are no field of the class
+    Set<Map.Entry<String, Object>> otherEntries()
+    {
+        return super.entrySet();
+    }
+
+    private int index(Object key)
+    {
+        if (plan == null || !(key instanceof String))
+        {
+            return -1;
+        }
+        final JSONPOJOReadPlan.FieldSlot slot = plan.slot((String) key);
+        return slot == null ? -1 : slot.index;
+    }
+
+    // Moves the slots and @ref into the map, after which this is a plain JSONPOJOElement
+    private void expand()
+    {
+        if (plan == null)
+        {
+            return;
+        }
+        final JSONPOJOReadPlan.FieldSlot[] slots = plan.slots;
+        final Object[] vals = values;
+        plan = null;
+        values = null;
+        count = 0;
+        for (int i = 0; i < vals.length; i++)
+        {
+            if (vals[i] != null)
+            {
+                super.put(slots[i].name, vals[i] == NULL_VALUE ? null : vals[i]);
+            }
+        }
+        if (ref != null)
+        {
+            super.put("@ref", ref);
+            ref = null;
+        }
+    }
+
+    public boolean isReference()
+    {
+        return ref != null || super.isReference();
+    }
+
+    public Long getReferenceId()
+    {
+        return ref != null ? ref : super.getReferenceId();
+    }
+
+    public Object put(String key, Object value)
+    {
+        if (plan != null)
+        {
+            final int i = index(key);
+            if (i >= 0)
+            {
+                final Object old = values[i];
+                values[i] = value == null ? NULL_VALUE : value;
+                if (old == null)
+                {
+                    count++;
+                    return null;
+                }
+                return old == NULL_VALUE ? null : old;
+            }
+            if ("@ref".equals(key) && (value == null || value instanceof Long))
+            {
+                final Long old = ref;
+                ref = (Long) value;
+                return old;
+            }
+            if ("@type".equals(key) && !clazz.getName().equals(value))
+            {   // Some other class after all
+                expand();
+            }
+        }
+        return super.put(key, value);
+    }
+
+    public Object get(Object key)
+    {
+        final int i = index(key);
+        if (i >= 0)
+        {
+            return value(i);
+        }
+        if (ref != null && "@ref".equals(key))
+        {
+            return ref;
+        }
+        return super.get(key);
+    }
+
+    public Object getOrDefault(Object key, Object defaultValue)
+    {
+        return containsKey(key) ? get(key) : defaultValue;
+    }
+
+    public boolean containsKey(Object key)
+    {
+        final int i = index(key);
+        if (i >= 0)
+        {
+            return values[i] != null;
+        }
+        if (ref != null && "@ref".equals(key))
+        {
+            return true;
+        }
+        return super.containsKey(key);
+    }
+
+    public boolean containsValue(Object value)
+    {
+        return values().contains(value);
+    }
+
+    public Object remove(Object key)
+    {
+        final int i = index(key);
+        if (i >= 0)
+        {
+            final Object old = values[i];
+            if (old == null)
+            {
+                return null;
+            }
+            values[i] = null;
+            count--;
+            return old == NULL_VALUE ? null : old;
+        }
+        if (ref != null && "@ref".equals(key))
+        {
+            final Long old = ref;
+            ref = null;
+            return old;
+        }
+        return super.remove(key);
+    }
+
+    public void putAll(Map<? extends String, ?> m)
+    {
+        for (Map.Entry<? extends String, ?> e : m.entrySet())
+        {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    public void clear()
+    {
+        if (values != null)
+        {
+            Arrays.fill(values, null);
+        }
+        count = 0;
+        ref = null;
+        super.clear();
+    }
+
+    public int size()
+    {
+        if (plan == null)
+        {
+            return super.size();
+        }
+        if (ref != null && !super.containsKey("@items"))
+        {
+            return 0;
+        }
+        return count + super.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return count == 0 && ref == null && super.isEmpty();
+    }
+
+    public void forEach(BiConsumer<? super String, ? super Object> action)
+    {
+        for (Map.Entry<String, Object> e : entrySet())
+        {
+            action.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    public Set<Map.Entry<String, Object>> entrySet()
+    {
+        if (plan == null)
+        {
+            return super.entrySet();
+        }
+        return new AbstractSet<Map.Entry<String, Object>>()
+        {
+            public int size()
+            {
+                return count + (ref != null ? 1 : 0) + JSONPOJOSlotElement.super.entrySet().size();
+            }
+
+            public Iterator<Map.Entry<String, Object>> iterator()
+            {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    public Set<String> keySet()
+    {
+        if (plan == null)
+        {
+            return super.keySet();
+        }
+        return new AbstractSet<String>()
+        {
+            public int size()
+            {
+                return entrySet().size();
+            }
+
+            public boolean contains(Object key)
+            {
+                return containsKey(key);
+            }
+
+            public Iterator<String> iterator()
+            {
+                final Iterator<Map.Entry<String, Object>> i = new EntryIterator();
+                return new Iterator<String>()
+                {
+                    public boolean hasNext()
+                    {
+                        return i.hasNext();
+                    }
+
+                    public String next()
+                    {
+                        return i.next().getKey();
+                    }
+                };
+            }
+        };
+    }
+
+    public Collection<Object> values()
+    {
+        if (plan == null)
+        {
+            return super.values();
+        }
+        return new AbstractCollection<Object>()
+        {
+            public int size()
+            {
+                return entrySet().size();
+            }
+
+            public Iterator<Object> iterator()
+            {
+                final Iterator<Map.Entry<String, Object>> i = new EntryIterator();
+                return new Iterator<Object>()
+                {
+                    public boolean hasNext()
+                    {
+                        return i.hasNext();
+                    }
+
+                    public Object next()
+                    {
+                        return i.next().getValue();
+                    }
+                };
+            }
+        };
+    }
+
+    // The slots in field order, then @ref, then the entries of the map. Entries write through to the slots.
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>>
+    {
+        private final Object[] vals = values;
+        private final JSONPOJOReadPlan.FieldSlot[] slots = plan.slots;
+        private int next = advance(0);
+        private boolean refDone = ref == null;
+        private Iterator<Map.Entry<String, Object>> rest;
+
+        private int advance(int i)
+        {
+            while (i < vals.length && vals[i] == null)
+            {
+                i++;
+            }
+            return i;
+        }
+
+        public boolean hasNext()
+        {
+            if (next < vals.length || !refDone)
+            {
+                return true;
+            }
+            if (rest == null)
+            {
+                rest = JSONPOJOSlotElement.super.entrySet().iterator();
+            }
+            return rest.hasNext();
+        }
+
+        public Map.Entry<String, Object> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            if (next < vals.length)
+            {
+                final int i = next;
+                next = advance(next + 1);
+                return new AbstractMap.SimpleEntry<String, Object>(slots[i].name, vals[i] == NULL_VALUE ? null : vals[i])
+                {
+                    public Object setValue(Object value)
+                    {
+                        vals[i] = value == null ? NULL_VALUE : value;
+                        return super.setValue(value);
+                    }
+                };
+            }
+            if (!refDone)
+            {
+                refDone = true;
+                return new AbstractMap.SimpleImmutableEntry<String, Object>("@ref", ref);
+            }
+            return rest.next();
+        }
+    }
+
+    // What the slots cannot do, the map does once the slots are moved into it
+
+    public Object putIfAbsent(String key, Object value)
+    {
+        expand();
+        return super.putIfAbsent(key, value);
+    }
+
+    public boolean remove(Object key, Object value)
+    {
+        expand();
+        return super.remove(key, value);
+    }
+
+    public boolean replace(String key, Object oldValue, Object newValue)
+    {
+        expand();
+        return super.replace(key, oldValue, newValue);
+    }
+
+    public Object replace(String key, Object value)
+    {
+        expand();
+        return super.replace(key, value);
+    }
+
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction)
+    {
+        expand();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction)
+    {
+        expand();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction)
+    {
+        expand();
+        return super.compute(key, remappingFunction);
+    }
+
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction)
+    {
+        expand();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function)
+    {
+        expand();
+        super.replaceAll(function);
+    }
+
+    public Object clone()
+    {
+        expand();
+        return super.clone();
+    }
+}
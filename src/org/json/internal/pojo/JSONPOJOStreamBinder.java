@@ -0,0 +1,404 @@
+package org.json.internal.pojo;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.exceptions.JSONIOException;
+
+
+// Binds JSON straight into Java objects as it is parsed, for the STREAMING option of JSONPOJOReader.
+// Plain classes and arrays of objects are bound field by field. Anything else (Maps, Collections, enums,
+// classes with a custom reader or factory, records, untyped objects) is parsed into a JSONPOJOElement subtree and
+// handed to the resolver, exactly as the two pass read would. References to objects not read yet are
+// left to the resolver's unresolved references, which are patched once the whole input is read.
+final class JSONPOJOStreamBinder
+{
+    private final JSONPOJOFastPushbackReader input;
+    private final JSONPOJOParser parser;
+    private final JSONPOJOObjectResolver resolver;
+    private final ClassLoader classLoader;
+    private final Deque<JSONPOJOElement<String, Object>> stack = new ArrayDeque<JSONPOJOElement<String, Object>>();
+    private List<JSONPOJOElement> identified;    // Objects given an @id in the element being iterated over
+
+    JSONPOJOStreamBinder(JSONPOJOFastPushbackReader input, JSONPOJOParser parser, JSONPOJOObjectResolver resolver)
+    {
+        this.input = input;
+        this.parser = parser;
+        this.resolver = resolver;
+        this.classLoader = resolver.getReader().getClassLoader();
+        resolver.forwardRefs = new HashMap<Long, JSONPOJOElement>();
+    }
+
+
+    Object readRoot() throws IOException
+    {
+        final int c = parser.skipWhitespaceRead();
+        Object graph;
+        if (c == '{')
+        {
+            Object value = readObject(Object.class);
+            if (value == JSONPOJOParser.EMPTY_OBJECT)
+            {
+                graph = new JSONPOJOElement();
+            }
+            else if (value instanceof JSONPOJOElement)
+            {
+                JSONPOJOElement<String, Object> root = (JSONPOJOElement<String, Object>) value;
+                resolver.createJavaObjectInstance(Object.class, root);
+                graph = resolver.convertMapsToObjects(root);
+            }
+            else
+            {
+                graph = value;
+            }
+        }
+        else if (c == '[')
+        {
+            graph = readArray(Object[].class, new JSONPOJOElement<String, Object>());
+        }
+        else
+        {
+            input.unread(c);
+            graph = parser.readValue(new JSONPOJOElement());
+        }
+
+        checkForwardRefs("");
+        return graph;
+    }
+
+    // Reads one element of the root array for JSONPOJOReader.iterate(), from its first char, and resolves it
+    // completely so nothing of it stays behind, but for the Java objects given an @id. References are resolved
+    // within the element and back to those objects of earlier elements.
+    Object readItem(int c, Class type) throws IOException
+    {
+        if (identified == null)
+        {
+            identified = new ArrayList<JSONPOJOElement>();
+            parser.trackIdentified(identified);
+        }
+        final JSONPOJOElement<String, Object> item = new JSONPOJOElement<String, Object>();
+        item.target = Array.newInstance(type, 1);
+        Array.set(item.target, 0, readElement(c, type, plainElements(type), item, 0));
+        checkForwardRefs(" in this or an earlier element");
+        resolver.cleanup(true);
+        resolver.forwardRefs.clear();
+
+        // Keep only the Java object of each, not the JSON it was read from
+        final JSONPOJOLongMap<JSONPOJOElement> objectsRead = resolver.getReader().objectsRead();
+        for (JSONPOJOElement jsonObj : identified)
+        {
+            final JSONPOJOElement kept = new JSONPOJOElement();
+            kept.target = jsonObj.target;
+            objectsRead.put(jsonObj.id, kept);
+        }
+        identified.clear();
+        return Array.get(item.target, 0);
+    }
+
+    private void checkForwardRefs(String where)
+    {
+        for (Map.Entry<Long, JSONPOJOElement> entry : resolver.forwardRefs.entrySet())
+        {
+            if (resolver.getReader().objectsRead().get(entry.getKey().longValue()) == entry.getValue())
+            {
+                throw new JSONIOException("Forward reference @ref: " + entry.getKey() + ", but no object defined (@id) with that value" + where);
+            }
+        }
+    }
+
+    // Reads an object, its '{' already consumed. Returns the bound Java object, or EMPTY_OBJECT or the
+    // parsed JSONPOJOElement when the object has to go through the resolver.
+    private Object readObject(Class declared) throws IOException
+    {
+        final JSONPOJOElement<String, Object> jsonObj = new JSONPOJOElement<String, Object>();
+        jsonObj.line = input.getLine();
+        jsonObj.col = input.getCol();
+        int c = parser.skipWhitespaceRead();
+        if (c == '}')
+        {
+            return JSONPOJOParser.EMPTY_OBJECT;
+        }
+        input.unread(c);
+
+        // Meta keys come first, and decide what the object is bound to
+        String field = parser.readField();
+        while ("@type".equals(field) || "@id".equals(field) || "@ref".equals(field))
+        {
+            parser.putValue(jsonObj, field, parser.readValue(jsonObj));
+            c = parser.skipWhitespaceRead();
+            if (c == '}')
+            {
+                return jsonObj;
+            }
+            if (c != ',')
+            {
+                parser.error(c == -1 ? "EOF reached before closing '}'" : "Object not ended with '}'");
+            }
+            field = parser.readField();
+        }
+
+        final Class clazz = jsonObj.isReference() ? null : bindableClass(jsonObj, declared);
+        if (clazz == null || (clazz.isArray() && !"@items".equals(field)))
+        {
+            parser.putValue(jsonObj, field, parser.readValue(jsonObj));
+            return parser.finishJsonObject(jsonObj);
+        }
+        if (jsonObj.type == null)
+        {
+            jsonObj.setType(clazz.getName());
+        }
+
+        if (clazz.isArray())
+        {
+            c = parser.skipWhitespaceRead();
+            if (c != '[')
+            {
+                input.unread(c);
+                parser.putValue(jsonObj, field, parser.readValue(jsonObj));
+                return parser.finishJsonObject(jsonObj);
+            }
+            final Object array = readArray(clazz, jsonObj);
+            c = parser.skipWhitespaceRead();
+            if (c != '}')
+            {
+                parser.error("Expected '}' after @items of an array");
+            }
+            return array;
+        }
+
+        // What createJavaObjectInstance() ends up doing for such a class, without looking the type up again
+        final Object target = JSONPOJOResolver.newInstance(clazz, jsonObj);
+        jsonObj.target = target;
+        final JSONPOJOReadPlan plan = JSONPOJOReadPlan.forClass(target.getClass());
+        while (true)
+        {
+            final JSONPOJOReadPlan.FieldSlot slot = plan.slot(field);
+            if (slot == null)
+            {
+                readUnknownField(jsonObj, field);
+            }
+            else
+            {
+                readField(jsonObj, slot);
+            }
+
+            c = parser.skipWhitespaceRead();
+            if (c == '}')
+            {
+                return target;
+            }
+            if (c != ',')
+            {
+                parser.error(c == -1 ? "EOF reached before closing '}'" : "Object not ended with '}'");
+            }
+            field = parser.readField();
+        }
+    }
+
+    private void readField(JSONPOJOElement<String, Object> jsonObj, JSONPOJOReadPlan.FieldSlot slot) throws IOException
+    {
+        final int c = parser.skipWhitespaceRead();
+        if (c == '{' && slot.genericType == null)
+        {   // Parameterized fields stay with the resolver, which types their contents from the type arguments
+            Object value = readObject(slot.type);
+            if (isBound(value))
+            {
+                resolver.setField(jsonObj, slot, value);
+                return;
+            }
+            resolver.assignField(stack, jsonObj, slot.field, slot, value);
+        }
+        else if (c == '[' && isObjectArray(slot.type))
+        {
+            resolver.setField(jsonObj, slot, readArray(slot.type, new JSONPOJOElement<String, Object>()));
+            return;
+        }
+        else
+        {
+            input.unread(c);
+            resolver.assignField(stack, jsonObj, slot.field, slot, parser.readValue(jsonObj));
+        }
+        if (!stack.isEmpty())
+        {
+            resolver.traverse(stack);
+        }
+    }
+
+    private void readUnknownField(JSONPOJOElement<String, Object> jsonObj, String field) throws IOException
+    {
+        if ("@type".equals(field))
+        {
+            parser.error("@type must come before the fields of an object");
+        }
+        final Object value = parser.readValue(jsonObj);
+        if ("@id".equals(field))
+        {
+            parser.putValue(jsonObj, field, value);
+        }
+        else if (resolver.missingFieldHandler != null)
+        {
+            resolver.handleMissingField(stack, jsonObj, value, field);
+            resolver.traverse(stack);
+        }
+    }
+
+    // Reads an array of objects, its '[' already consumed
+    private Object readArray(Class arrayType, JSONPOJOElement<String, Object> jsonObj) throws IOException
+    {
+        final Class compType = arrayType.getComponentType();
+        final boolean plainElements = plainElements(compType);
+        final List<Object> items = new ArrayList<Object>();
+
+        while (true)
+        {
+            int c = parser.skipWhitespaceRead();
+            if (c == ']')
+            {
+                break;
+            }
+            items.add(readElement(c, compType, plainElements, jsonObj, items.size()));
+
+            c = parser.skipWhitespaceRead();
+            if (c == ']')
+            {
+                break;
+            }
+            if (c != ',')
+            {
+                parser.error("Expected ',' or ']' inside array");
+            }
+        }
+
+        final int size = items.size();
+        final Object array = Array.newInstance(compType, size);
+        for (int i = 0; i < size; i++)
+        {
+            Array.set(array, i, items.get(i));
+        }
+        jsonObj.target = array;
+        return array;
+    }
+
+    // Reads one element of a compType[] from its first char. Forward references patch index of jsonObj's target.
+    private Object readElement(int c, Class compType, boolean plainElements, JSONPOJOElement<String, Object> jsonObj, int index) throws IOException
+    {
+        Object value;
+        if (c == '{')
+        {
+            value = readObject(compType);
+            if (value instanceof JSONPOJOElement && ((JSONPOJOElement) value).isReference())
+            {
+                final Long ref = ((JSONPOJOElement) value).getReferenceId();
+                final JSONPOJOElement refObject = resolver.getReferencedObj(ref);
+                value = refObject.target;
+                if (value == null)
+                {
+                    resolver.unresolvedRefs.add(new JSONPOJOResolver.UnresolvedReference(jsonObj, index, ref));
+                }
+            }
+            else if (!isBound(value))
+            {
+                value = convertElement(compType, value);
+            }
+        }
+        else if (c == '[' && isObjectArray(compType))
+        {
+            value = readArray(compType, new JSONPOJOElement<String, Object>());
+        }
+        else
+        {
+            input.unread(c);
+            value = parser.readValue(jsonObj);
+            if (value != null && !(value instanceof Object[]) && plainElements)
+            {   // Same as the resolver does for a scalar element when no reader claims the component type
+                if (JSONPOJOMetaUtils.isPrimitive(compType))
+                {
+                    value = JSONPOJOMetaUtils.convert(compType, value);
+                }
+                else if (value instanceof String && "".equals(((String) value).trim()) && compType != String.class && compType != Object.class)
+                {
+                    value = null;
+                }
+            }
+            else if (value != null)
+            {
+                value = convertElement(compType, value);
+            }
+        }
+        return value;
+    }
+
+    // Converts one parsed element the way the resolver converts an element of a compType[]
+    private Object convertElement(Class compType, Object element)
+    {
+        final JSONPOJOElement<String, Object> single = new JSONPOJOElement<String, Object>();
+        single.put("@items", new Object[]{element});
+        single.target = Array.newInstance(compType, 1);
+        stack.addFirst(single);
+        resolver.traverse(stack);
+        return Array.get(single.target, 0);
+    }
+
+    // True when no reader claims compType, so scalars need no more than the primitive conversion
+    private boolean plainElements(Class compType)
+    {
+        return resolver.notCustom(compType) || resolver.getCustomReader(compType) == null;
+    }
+
+    private static boolean isBound(Object value)
+    {
+        return value != JSONPOJOParser.EMPTY_OBJECT && !(value instanceof JSONPOJOElement);
+    }
+
+    private static boolean isObjectArray(Class c)
+    {
+        return c.isArray() && !c.getComponentType().isPrimitive();
+    }
+
+    // The class an object can be bound to field by field, or null when it needs the resolver
+    private Class bindableClass(JSONPOJOElement jsonObj, Class declared)
+    {
+        Class c = declared;
+        final String type = jsonObj.type;
+        if (type != null)
+        {
+            if ("java.lang.Object".equals(type))
+            {
+                return null;
+            }
+            try
+            {
+                c = JSONPOJOMetaUtils.classForName(type, classLoader);
+            }
+            catch (Exception e)
+            {
+                return null;
+            }
+        }
+
+        if (c.isArray())
+        {
+            return isObjectArray(c) ? c : null;
+        }
+        if (c == Object.class || c == Class.class || c.isPrimitive() || c.isInterface() || Modifier.isAbstract(c.getModifiers()) ||
+                JSONPOJOMetaUtils.isLogicalPrimitive(c) || Enum.class.isAssignableFrom(c) ||
+                Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c) || JSONPOJOReader.hasFactory(c) ||
+                JSONPOJOConstructorPlan.forClass(c) != null)
+        {
+            return null;
+        }
+        if (!resolver.notCustom(declared) && !resolver.notCustom(c) && resolver.getCustomReader(c) != null)
+        {
+            return null;
+        }
+        return c;
+    }
+}
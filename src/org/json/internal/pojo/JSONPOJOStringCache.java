@@ -0,0 +1,53 @@
+package org.json.internal.pojo;
+
+
+// Bounded cache that hands out one String instance for short strings read over and over (field names,
+// type names, codes). Direct mapped: each hash has a single slot, and a newer string simply replaces the one
+// there, so it never grows and needs no eviction. Lookups hash the parser's StringBuilder and only allocate
+// on a miss. Safe to share between threads without locking: slots hold immutable Strings, and a lost race
+// costs no more than a miss.
+final class JSONPOJOStringCache
+{
+    static final int DEFAULT_SIZE = 4096;
+    static final int MAX_LENGTH = 64;   // Longer strings are rarely repeated, and not worth hashing twice
+
+    static final JSONPOJOStringCache GLOBAL = new JSONPOJOStringCache(DEFAULT_SIZE);
+
+    private final String[] table;
+    private final int mask;
+
+    JSONPOJOStringCache(int size)
+    {
+        int capacity = 16;
+        while (capacity < size)
+        {
+            capacity <<= 1;
+        }
+        table = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    // The contents of s, from the cache when already there
+    String get(StringBuilder s)
+    {
+        final int len = s.length();
+        if (len > MAX_LENGTH)
+        {
+            return s.toString();
+        }
+        int h = 0;
+        for (int i = 0; i < len; i++)
+        {
+            h = 31 * h + s.charAt(i);
+        }
+        final int i = (h ^ (h >>> 16)) & mask;
+        final String cached = table[i];
+        if (cached != null && cached.hashCode() == h && cached.contentEquals(s))
+        {
+            return cached;
+        }
+        final String str = s.toString();
+        table[i] = str;
+        return str;
+    }
+}
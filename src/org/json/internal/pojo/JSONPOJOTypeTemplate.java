@@ -0,0 +1,122 @@
+package org.json.internal.pojo;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+// The parameterized type of a field taken apart once, for markUntypedObjects(): one node per type in the tree
+// of type arguments, with the class name to stamp on an untyped JSON object found at that place, and how to go
+// on into the Map, Collection or other generic object there. The tree belongs to one field, as the fields of
+// its raw type decide which values of a generic object are followed, at any depth.
+final class JSONPOJOTypeTemplate
+{
+    static final int LEAF = 0;
+    static final int MAP = 1;
+    static final int COLLECTION = 2;
+    static final int OBJECT = 3;
+
+    private static final ConcurrentMap<Field, JSONPOJOTypeTemplate> fieldTemplates = new ConcurrentHashMap<Field, JSONPOJOTypeTemplate>();
+    private static final JSONPOJOTypeTemplate NONE = new JSONPOJOTypeTemplate();
+
+    final int kind;
+    // Name to stamp as @type, or null when the type has no class to name
+    final String typeName;
+    // Raw type of a parameterized type, or null
+    final Class rawType;
+    // Raw type is a Collection, so the values at this place are traversed as one array
+    final boolean collection;
+    final JSONPOJOTypeTemplate[] args;
+    // For OBJECT: the names of the fields followed with the first type argument
+    final Set<String> genericFields;
+
+    private JSONPOJOTypeTemplate()
+    {
+        kind = LEAF;
+        typeName = null;
+        rawType = null;
+        collection = false;
+        args = null;
+        genericFields = null;
+    }
+
+    private JSONPOJOTypeTemplate(Type type, Set<String> fields)
+    {
+        if (type instanceof ParameterizedType)
+        {
+            final ParameterizedType pType = (ParameterizedType) type;
+            rawType = JSONPOJOObjectResolver.getRawType(type);
+            final Type[] typeArgs = pType.getActualTypeArguments();
+            if (typeArgs == null || typeArgs.length < 1 || rawType == null)
+            {   // Nothing known to stamp or follow
+                kind = LEAF;
+                typeName = null;
+                args = null;
+                genericFields = null;
+            }
+            else
+            {
+                kind = Map.class.isAssignableFrom(rawType) ? MAP : Collection.class.isAssignableFrom(rawType) ? COLLECTION : OBJECT;
+                typeName = rawType.getName();
+                args = new JSONPOJOTypeTemplate[typeArgs.length];
+                for (int i = 0; i < typeArgs.length; i++)
+                {
+                    args[i] = new JSONPOJOTypeTemplate(typeArgs[i], fields);
+                }
+                genericFields = kind == OBJECT ? fields : null;
+            }
+        }
+        else
+        {
+            kind = LEAF;
+            rawType = null;
+            typeName = type instanceof Class ? ((Class) type).getName() : null;
+            args = null;
+            genericFields = null;
+        }
+        collection = rawType != null && Collection.class.isAssignableFrom(rawType);
+    }
+
+    // The template of a field declared as type, or null when the type is not parameterized
+    static JSONPOJOTypeTemplate forType(Type type, Class fieldType)
+    {
+        return type instanceof ParameterizedType ? new JSONPOJOTypeTemplate(type, genericFields(fieldType)) : null;
+    }
+
+    // The template of field, made on first use, or null when its type is not parameterized
+    static JSONPOJOTypeTemplate forField(Field field)
+    {
+        JSONPOJOTypeTemplate template = fieldTemplates.get(field);
+        if (template == null)
+        {
+            template = forType(field.getGenericType(), field.getType());
+            fieldTemplates.putIfAbsent(field, template == null ? NONE : template);
+        }
+        return template == NONE ? null : template;
+    }
+
+    // A class's fields whose values can be of a type argument: of a generic type, or typed by a type variable
+    private static Set<String> genericFields(Class c)
+    {
+        final Set<String> names = new HashSet<String>();
+        for (Map.Entry<String, Field> entry : JSONPOJOMetaUtils.getDeepDeclaredFields(c).entrySet())
+        {
+            final String name = entry.getKey();
+            final Field field = entry.getValue();
+            if (!name.startsWith("this$") &&
+                    (field.getType().getTypeParameters().length > 0 || field.getGenericType() instanceof TypeVariable))
+            {
+                names.add(name);
+            }
+        }
+        return names.isEmpty() ? Collections.<String>emptySet() : names;
+    }
+}
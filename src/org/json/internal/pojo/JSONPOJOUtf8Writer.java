@@ -0,0 +1,334 @@
+package org.json.internal.pojo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+final class JSONPOJOUtf8Writer extends Writer
+{
+    private static final int BUFFER_SIZE = 8192;
+    // Largest number of bytes a single char can produce: the 6 char escape of a control char
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    // Escaped form of every ASCII char that needs one inside a JSON string, null for the others
+    static final String[] ESCAPED = new String[128];
+    private static final byte[][] ESCAPED_BYTES = new byte[128][];
+
+    private final OutputStream stream;
+    private final ByteBuffer target;
+    private byte[] buf;
+    private int pos = 0;
+    private char highSurrogate = 0;
+
+    static
+    {
+        for (int c = 0; c < ' '; c++)
+        {
+            ESCAPED[c] = "\\u00" + HEX[c >> 4] + HEX[c & 0xF];
+        }
+        ESCAPED['\b'] = "\\b";
+        ESCAPED['\f'] = "\\f";
+        ESCAPED['\n'] = "\\n";
+        ESCAPED['\r'] = "\\r";
+        ESCAPED['\t'] = "\\t";
+        ESCAPED['"'] = "\\\"";
+        ESCAPED['\\'] = "\\\\";
+        for (int c = 0; c < ESCAPED.length; c++)
+        {
+            if (ESCAPED[c] != null)
+            {
+                ESCAPED_BYTES[c] = ESCAPED[c].getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+    }
+
+    
+    JSONPOJOUtf8Writer(OutputStream stream)
+    {
+        this.stream = stream;
+        this.target = null;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    
+    JSONPOJOUtf8Writer(ByteBuffer target)
+    {
+        this.stream = null;
+        this.target = target;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    // Growable in-memory sink, read back with toString()
+    JSONPOJOUtf8Writer()
+    {
+        this.stream = null;
+        this.target = null;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    private void require(int n) throws IOException
+    {
+        if (pos + n > buf.length)
+        {
+            if (stream != null || target != null)
+            {
+                drain();
+            }
+            if (pos + n > buf.length)
+            {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        if (pos == 0)
+        {
+            return;
+        }
+        if (stream != null)
+        {
+            stream.write(buf, 0, pos);
+        }
+        else
+        {
+            target.put(buf, 0, pos);
+        }
+        pos = 0;
+    }
+
+    
+    public void write(int c) throws IOException
+    {
+        if (c < 0x80 && highSurrogate == 0)
+        {
+            if (pos == buf.length)
+            {
+                require(1);
+            }
+            buf[pos++] = (byte) c;
+            return;
+        }
+        require(MAX_CHAR_BYTES);
+        encode((char) c);
+    }
+
+    
+    public void write(char[] chars, int off, int len) throws IOException
+    {
+        final int end = off + len;
+        while (off < end)
+        {
+            require(MAX_CHAR_BYTES);
+            final byte[] b = buf;
+            int p = pos;
+            // Copy the ASCII run that fits in the buffer without further checks
+            final int runEnd = Math.min(end, off + (b.length - p) - MAX_CHAR_BYTES + 1);
+            char c;
+            while (off < runEnd && (c = chars[off]) < 0x80 && highSurrogate == 0)
+            {
+                b[p++] = (byte) c;
+                off++;
+            }
+            pos = p;
+            if (off < end && off >= runEnd)
+            {
+                continue;
+            }
+            if (off < end)
+            {
+                encode(chars[off++]);
+            }
+        }
+    }
+
+    
+    public void write(String s, int off, int len) throws IOException
+    {
+        final int end = off + len;
+        while (off < end)
+        {
+            require(MAX_CHAR_BYTES);
+            final byte[] b = buf;
+            int p = pos;
+            final int runEnd = Math.min(end, off + (b.length - p) - MAX_CHAR_BYTES + 1);
+            char c;
+            while (off < runEnd && (c = s.charAt(off)) < 0x80 && highSurrogate == 0)
+            {
+                b[p++] = (byte) c;
+                off++;
+            }
+            pos = p;
+            if (off < end && off >= runEnd)
+            {
+                continue;
+            }
+            if (off < end)
+            {
+                encode(s.charAt(off++));
+            }
+        }
+    }
+
+    
+    public void write(String s) throws IOException
+    {
+        write(s, 0, s.length());
+    }
+
+    
+    void writeQuoted(String s) throws IOException
+    {
+        require(2);
+        if (highSurrogate != 0)
+        {   // Left over from write(int)
+            highSurrogate = 0;
+            buf[pos++] = '?';
+        }
+        buf[pos++] = '"';
+        final int len = s.length();
+        int i = 0;
+        while (i < len)
+        {
+            require(MAX_CHAR_BYTES);
+            final byte[] b = buf;
+            int p = pos;
+            final int runEnd = Math.min(len, i + (b.length - p) - MAX_CHAR_BYTES + 1);
+            char c = 0;
+            // Bulk copy the run of ASCII chars that need no escaping
+            while (i < runEnd && (c = s.charAt(i)) < 0x80 && ESCAPED_BYTES[c] == null)
+            {
+                b[p++] = (byte) c;
+                i++;
+            }
+            if (i >= runEnd)
+            {
+                pos = p;
+                continue;
+            }
+            i++;
+            if (c < 0x80)
+            {
+                final byte[] escaped = ESCAPED_BYTES[c];
+                for (int k = 0; k < escaped.length; k++)
+                {
+                    b[p++] = escaped[k];
+                }
+            }
+            else if (c < 0x800)
+            {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (!Character.isSurrogate(c))
+            {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i < len && Character.isLowSurrogate(s.charAt(i)))
+            {
+                int cp = Character.toCodePoint(c, s.charAt(i++));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            }
+            else
+            {   // Unpaired surrogate, written as '?' like the UTF-8 encoder does
+                b[p++] = '?';
+            }
+            pos = p;
+        }
+        require(1);
+        buf[pos++] = '"';
+    }
+
+    // Needs MAX_CHAR_BYTES of room in buf. Unpaired surrogates are written as '?', as the UTF-8 encoder does.
+    private void encode(char c)
+    {
+        final byte[] b = buf;
+        int p = pos;
+        if (highSurrogate != 0)
+        {
+            if (Character.isLowSurrogate(c))
+            {
+                int cp = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+                pos = p;
+                return;
+            }
+            highSurrogate = 0;
+            b[p++] = '?';
+        }
+        if (c < 0x80)
+        {
+            b[p++] = (byte) c;
+        }
+        else if (c < 0x800)
+        {
+            b[p++] = (byte) (0xC0 | (c >> 6));
+            b[p++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if (Character.isHighSurrogate(c))
+        {
+            highSurrogate = c;
+        }
+        else if (Character.isLowSurrogate(c))
+        {
+            b[p++] = '?';
+        }
+        else
+        {
+            b[p++] = (byte) (0xE0 | (c >> 12));
+            b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            b[p++] = (byte) (0x80 | (c & 0x3F));
+        }
+        pos = p;
+    }
+
+    
+    public void flush() throws IOException
+    {
+        if (stream != null)
+        {
+            drain();
+            stream.flush();
+        }
+        else if (target != null)
+        {
+            drain();
+        }
+    }
+
+    
+    public void close() throws IOException
+    {
+        if (highSurrogate != 0)
+        {
+            highSurrogate = 0;
+            require(1);
+            buf[pos++] = '?';
+        }
+        flush();
+        if (stream != null)
+        {
+            stream.close();
+        }
+    }
+
+    
+    public String toString()
+    {
+        return new String(buf, 0, pos, StandardCharsets.UTF_8);
+    }
+}
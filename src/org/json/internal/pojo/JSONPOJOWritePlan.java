@@ -0,0 +1,242 @@
+package org.json.internal.pojo;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.json.exceptions.JSONIOException;
+
+
+final class JSONPOJOWritePlan
+{
+    static final int OBJECT = 0;
+    static final int STRING = 1;
+    static final int BOOLEAN = 2;
+    static final int BYTE = 3;
+    static final int SHORT = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+    static final int CHAR = 9;
+
+    private static final FieldPlan[] EMPTY = new FieldPlan[0];
+    private static final ClassValue<JSONPOJOWritePlan> plans = new ClassValue<JSONPOJOWritePlan>()
+    {
+        protected JSONPOJOWritePlan computeValue(Class<?> c)
+        {
+            return new JSONPOJOWritePlan(c);
+        }
+    };
+
+    // Fields written by default, in the order of getDeepDeclaredFields()
+    final FieldPlan[] fields;
+    // Non-transient fields that can hold a reference to another object
+    final FieldPlan[] references;
+
+    private JSONPOJOWritePlan(Class c)
+    {
+        List<FieldPlan> written = new ArrayList<FieldPlan>();
+        List<FieldPlan> traced = new ArrayList<FieldPlan>();
+        final boolean isEnum = Enum.class.isAssignableFrom(c);
+
+        for (Map.Entry<String, Field> entry : JSONPOJOMetaUtils.getDeepDeclaredFields(c).entrySet())
+        {
+            final Field field = entry.getValue();
+            final int modifiers = field.getModifiers();
+            if ((modifiers & Modifier.TRANSIENT) != 0)
+            {
+                continue;
+            }
+            boolean enumNonPublic = false;
+            if (isEnum && Enum.class.isAssignableFrom(field.getDeclaringClass()) && !"name".equals(field.getName()))
+            {
+                if ("ordinal".equals(field.getName()) || "internal".equals(field.getName()))
+                {   // Never written, but may still be traced
+                    if (!field.getType().isPrimitive())
+                    {
+                        traced.add(new FieldPlan(entry.getKey(), field, false));
+                    }
+                    continue;
+                }
+                enumNonPublic = !Modifier.isPublic(modifiers);
+            }
+            FieldPlan plan = new FieldPlan(entry.getKey(), field, enumNonPublic);
+            written.add(plan);
+            if (!field.getType().isPrimitive())
+            {
+                traced.add(plan);
+            }
+        }
+        fields = written.toArray(EMPTY);
+        references = traced.toArray(EMPTY);
+    }
+
+    static JSONPOJOWritePlan forClass(Class c)
+    {
+        return plans.get(c);
+    }
+
+    static final class FieldPlan
+    {
+        final Field field;
+        final Class type;
+        final int kind;
+        // The field name already escaped and quoted, followed by ':'
+        final char[] key;
+        // Declared type is a primitive or a primitive wrapper
+        final boolean primitiveType;
+        // Non-public field of an enum, skipped when ENUM_PUBLIC_ONLY is set
+        final boolean enumNonPublic;
+        private final MethodHandle getter;
+        private final boolean readable;
+
+        private FieldPlan(String name, Field field, boolean enumNonPublic)
+        {
+            this.field = field;
+            this.type = field.getType();
+            this.enumNonPublic = enumNonPublic;
+            this.primitiveType = JSONPOJOMetaUtils.isPrimitive(type);
+
+            CharArrayWriter escaped = new CharArrayWriter(name.length() + 3);
+            try
+            {
+                JSONPOJOWriter.writeJsonUtf8String(name, escaped);
+            }
+            catch (IOException e)
+            {
+                throw new JSONIOException("Unable to escape field name: " + name, e);
+            }
+            escaped.append(':');
+            key = escaped.toCharArray();
+
+            MethodHandle handle;
+            boolean readable = true;
+            try
+            {
+                handle = MethodHandles.lookup().unreflectGetter(field);
+                handle = handle.asType(MethodType.methodType(type.isPrimitive() ? type : Object.class, Object.class));
+            }
+            catch (IllegalAccessException e)
+            {   // Inaccessible field (e.g. inside a JDK module): Field.get() would throw, so it always reads as null
+                handle = null;
+                readable = false;
+            }
+            catch (Exception e)
+            {   // Fall back to Field.get()
+                handle = null;
+            }
+            getter = handle;
+            this.readable = readable;
+            kind = handle == null ? OBJECT : kindOf(type);
+        }
+
+        private static int kindOf(Class c)
+        {
+            if (c == String.class)
+            {
+                return STRING;
+            }
+            if (!c.isPrimitive())
+            {
+                return OBJECT;
+            }
+            if (c == int.class)
+            {
+                return INT;
+            }
+            if (c == long.class)
+            {
+                return LONG;
+            }
+            if (c == boolean.class)
+            {
+                return BOOLEAN;
+            }
+            if (c == double.class)
+            {
+                return DOUBLE;
+            }
+            if (c == float.class)
+            {
+                return FLOAT;
+            }
+            if (c == short.class)
+            {
+                return SHORT;
+            }
+            if (c == byte.class)
+            {
+                return BYTE;
+            }
+            return CHAR;
+        }
+
+        Object get(Object obj)
+        {
+            if (!readable)
+            {
+                return null;
+            }
+            try
+            {
+                return getter == null ? field.get(obj) : (Object) getter.invokeExact(obj);
+            }
+            catch (Error e)
+            {
+                throw e;
+            }
+            catch (Throwable ignored)
+            {   // An Exception, as Field.get() would have thrown, for an unreadable field
+                return null;
+            }
+        }
+
+        boolean getBoolean(Object obj) throws Throwable
+        {
+            return (boolean) getter.invokeExact(obj);
+        }
+
+        byte getByte(Object obj) throws Throwable
+        {
+            return (byte) getter.invokeExact(obj);
+        }
+
+        short getShort(Object obj) throws Throwable
+        {
+            return (short) getter.invokeExact(obj);
+        }
+
+        int getInt(Object obj) throws Throwable
+        {
+            return (int) getter.invokeExact(obj);
+        }
+
+        long getLong(Object obj) throws Throwable
+        {
+            return (long) getter.invokeExact(obj);
+        }
+
+        float getFloat(Object obj) throws Throwable
+        {
+            return (float) getter.invokeExact(obj);
+        }
+
+        double getDouble(Object obj) throws Throwable
+        {
+            return (double) getter.invokeExact(obj);
+        }
+
+        char getChar(Object obj) throws Throwable
+        {
+            return (char) getter.invokeExact(obj);
+        }
+    }
+}
@@ -2,11 +2,17 @@ package org.json.internal.pojo;
 
 import java.io.*;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -39,7 +45,7 @@ public class JSONPOJOWriter implements Closeable, Flushable
     
     public static final String FIELD_NAME_BLACK_LIST = "FIELD_NAME_BLACK_LIST";
     
-    private static final String FIELD_BLACK_LIST = "FIELD_BLACK_LIST";
+    static final String FIELD_BLACK_LIST = "FIELD_BLACK_LIST";
     
     public static final String ENUM_PUBLIC_ONLY = "ENUM_PUBLIC_ONLY";
     
@@ -52,17 +58,22 @@ public class JSONPOJOWriter implements Closeable, Flushable
     public static final String SKIP_NULL_FIELDS = "SKIP_NULL";
     
     public static final String CLASSLOADER = "CLASSLOADER";
+    
+    public static final String SINGLE_PASS = "SINGLE_PASS";
 
-    private static Map<Class, JsonClassWriterBase> BASE_WRITERS;
-    private final Map<Class, JsonClassWriterBase> writers = new HashMap<Class, JsonClassWriterBase>(BASE_WRITERS);  // Add customer writers (these make common classes more succinct)
+    private static volatile JSONPOJOClassDispatch<JsonClassWriterBase> BASE_WRITERS;
+    private Map<Class, JsonClassWriterBase> writers;  // Add customer writers (these make common classes more succinct)
+    private JSONPOJOClassDispatch<JsonClassWriterBase> dispatch;  // shared closest-writer lookup, until writers is changed
     private final Map<Class, JsonClassWriterBase> writerCache = new HashMap<Class, JsonClassWriterBase>();
-    private final Set<Class> notCustom = new HashSet<Class>();
+    private Set<Class> notCustom;
+    private boolean sharedWriters = true;   // writers / notCustom belong to the config until changed
+    private boolean sharedNotCustom = true;
     private static final Object[] byteStrings = new Object[256];
     private static final String NEW_LINE = System.getProperty("line.separator");
-    private static final Long ZERO = 0L;
     private static final NullClass nullWriter = new NullClass();
-    private final Map<Object, Long> objVisited = new IdentityHashMap<Object, Long>();
-    private final Map<Object, Long> objsReferenced = new IdentityHashMap<Object, Long>();
+    // Cleared but never shrunk, so later write() calls on this writer find them presized
+    private final JSONPOJOIdentityLongMap objVisited = new JSONPOJOIdentityLongMap(64);
+    private final JSONPOJOIdentityLongMap objsReferenced = new JSONPOJOIdentityLongMap(16);
     private final Writer out;
     private Map<String, String> typeNameMap = null;
     private boolean shortMetaKeys = false;
@@ -72,6 +83,13 @@ public class JSONPOJOWriter implements Closeable, Flushable
     private boolean isEnumPublicOnly = false;
     private boolean writeLongsAsStrings = false;
     private boolean skipNullFields = false;
+    private boolean singlePass = false;
+    private Object[] path = new Object[16];
+    private int pathDepth = 0;
+    private Map<Class, List<Field>> fieldSpecifiers;
+    private Map<Class, List<Field>> fieldBlackList;
+    private Boolean nativeStrings = null;
+    private final char[] numberBuffer = new char[20];
     private long identity = 1;
     private int depth = 0;
     
@@ -101,7 +119,12 @@ public class JSONPOJOWriter implements Closeable, Flushable
         temp.put(Class.class, new JSONPOJOWriters.ClassWriter());
         temp.put(StringBuilder.class, new JSONPOJOWriters.StringBuilderWriter());
         temp.put(StringBuffer.class, new JSONPOJOWriters.StringBufferWriter());
-        BASE_WRITERS = temp;
+        temp.put(Instant.class, new JSONPOJOWriters.InstantWriter());
+        temp.put(LocalDate.class, new JSONPOJOWriters.LocalDateWriter());
+        temp.put(LocalDateTime.class, new JSONPOJOWriters.LocalDateTimeWriter());
+        temp.put(OffsetDateTime.class, new JSONPOJOWriters.OffsetDateTimeWriter());
+        temp.put(ZonedDateTime.class, new JSONPOJOWriters.ZonedDateTimeWriter());
+        BASE_WRITERS = new JSONPOJOClassDispatch<JsonClassWriterBase>(Collections.unmodifiableMap(temp));
     }
 
     
@@ -176,19 +199,45 @@ public class JSONPOJOWriter implements Closeable, Flushable
     
     public static String objectToJson(Object item)
     {
-        return objectToJson(item, null);
+        return objectToJson(item, (Map<String, Object>) null);
     }
 
     
     public static String objectToJson(Object item, Map<String, Object> optionalArgs)
     {
+        final JSONPOJOWriterConfig config;
         try
         {
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
-            JSONPOJOWriter writer = new JSONPOJOWriter(stream, optionalArgs);
-            writer.write(item);
+            config = new JSONPOJOWriterConfig(optionalArgs);
+        }
+        catch (Exception e)
+        {
+            throw new JSONIOException("Unable to convert object to JSON", e);
+        }
+        return objectToJson(item, config);
+    }
+
+    
+    static String objectToJson(Object item, JSONPOJOWriterConfig config)
+    {
+        try
+        {
+            JSONPOJOUtf8Writer sink = new JSONPOJOUtf8Writer();
+            JSONPOJOWriter writer = new JSONPOJOWriter(sink, config);
+            try
+            {
+                writer.write(item);
+            }
+            catch (CycleException e)
+            {   // The graph is not a tree: start over with the two-pass writer, which emits @id / @ref for it
+                writer.close();
+                sink = new JSONPOJOUtf8Writer();
+                writer = new JSONPOJOWriter(sink, config);
+                writer.singlePass = false;
+                writer.write(item);
+            }
             writer.close();
-            return new String(stream.toByteArray(), "UTF-8");
+            return sink.toString();
         }
         catch (Exception e)
         {
@@ -224,17 +273,38 @@ public class JSONPOJOWriter implements Closeable, Flushable
     
     public JSONPOJOWriter(OutputStream out)
     {
-        this(out, null);
+        this(out, (Map<String, Object>) null);
     }
 
     
     public JSONPOJOWriter(OutputStream out, Map<String, Object> optionalArgs)
     {
-        if (optionalArgs == null)
-        {
-            optionalArgs = new HashMap<String, Object>();
-        }
-        args.putAll(optionalArgs);
+        this(out, new JSONPOJOWriterConfig(optionalArgs));
+    }
+
+    
+    public JSONPOJOWriter(ByteBuffer out, Map<String, Object> optionalArgs)
+    {
+        this(new JSONPOJOUtf8Writer(out), new JSONPOJOWriterConfig(optionalArgs));
+    }
+
+    
+    JSONPOJOWriter(OutputStream out, JSONPOJOWriterConfig config)
+    {
+        this(new JSONPOJOUtf8Writer(out), config);
+    }
+
+    
+    JSONPOJOWriter(ByteBuffer out, JSONPOJOWriterConfig config)
+    {
+        this(new JSONPOJOUtf8Writer(out), config);
+    }
+
+    
+    private JSONPOJOWriter(Writer out, JSONPOJOWriterConfig config)
+    {
+        this.out = out;
+        args.putAll(config.args);
         args.put(JsonClassWriterEx.JSON_WRITER, this);
         typeNameMap = (Map<String, String>) args.get(TYPE_NAME_MAP);
         shortMetaKeys = isTrue(args.get(SHORT_META_KEYS));
@@ -243,98 +313,13 @@ public class JSONPOJOWriter implements Closeable, Flushable
         isPrettyPrint = isTrue(args.get(PRETTY_PRINT));
         isEnumPublicOnly = isTrue(args.get(ENUM_PUBLIC_ONLY));
         writeLongsAsStrings = isTrue(args.get(WRITE_LONGS_AS_STRINGS));
-        writeLongsAsStrings = isTrue(args.get(WRITE_LONGS_AS_STRINGS));
         skipNullFields = isTrue(args.get(SKIP_NULL_FIELDS));
-        if (!args.containsKey(CLASSLOADER))
-        {
-            args.put(CLASSLOADER, JSONPOJOWriter.class.getClassLoader());
-        }
-
-        Map<Class, JsonClassWriterBase> customWriters = (Map<Class, JsonClassWriterBase>) args.get(CUSTOM_WRITER_MAP);
-        if (customWriters != null)
-        {
-            for (Map.Entry<Class, JsonClassWriterBase> entry : customWriters.entrySet())
-            {
-                addWriter(entry.getKey(), entry.getValue());
-            }
-        }
-
-        Collection<Class> notCustomClasses = (Collection<Class>) args.get(NOT_CUSTOM_WRITER_MAP);
-        if (notCustomClasses != null)
-        {
-            for (Class c : notCustomClasses)
-            {
-                addNotCustomWriter(c);
-            }
-        }
-
-        if (optionalArgs.containsKey(FIELD_SPECIFIERS))
-        {   // Convert String field names to Java Field instances (makes it easier for user to set this up)
-            Map<Class, List<String>> specifiers = (Map<Class, List<String>>) args.get(FIELD_SPECIFIERS);
-            Map<Class, List<Field>> copy = new HashMap<Class, List<Field>>();
-            for (Entry<Class, List<String>> entry : specifiers.entrySet())
-            {
-                Class c = entry.getKey();
-                List<String> fields = entry.getValue();
-                List<Field> newList = new ArrayList(fields.size());
-
-                Map<String, Field> classFields = JSONPOJOMetaUtils.getDeepDeclaredFields(c);
-
-                for (String field : fields)
-                {
-                    Field f = classFields.get(field);
-                    if (f == null)
-                    {
-                        throw new JSONIOException("Unable to locate field: " + field + " on class: " + c.getName() + ". Make sure the fields in the FIELD_SPECIFIERS map existing on the associated class.");
-                    }
-                    newList.add(f);
-                }
-                copy.put(c, newList);
-            }
-            args.put(FIELD_SPECIFIERS, copy);
-        }
-        else
-        {   // Ensure that at least an empty Map is in the FIELD_SPECIFIERS entry
-            args.put(FIELD_SPECIFIERS, new HashMap());
-        }
-        if (optionalArgs.containsKey(FIELD_NAME_BLACK_LIST))
-        {   // Convert String field names to Java Field instances (makes it easier for user to set this up)
-            Map<Class, List<String>> blackList = (Map<Class, List<String>>) args.get(FIELD_NAME_BLACK_LIST);
-            Map<Class, List<Field>> copy = new HashMap<Class, List<Field>>();
-            for (Entry<Class, List<String>> entry : blackList.entrySet())
-            {
-                Class c = entry.getKey();
-                List<String> fields = entry.getValue();
-                List<Field> newList = new ArrayList<Field>(fields.size());
-
-                Map<String, Field> classFields = JSONPOJOMetaUtils.getDeepDeclaredFields(c);
-
-                for (String field : fields)
-                {
-                    Field f = classFields.get(field);
-                    if (f == null)
-                    {
-                        throw new JSONIOException("Unable to locate field: " + field + " on class: " + c.getName() + ". Make sure the fields in the FIELD_NAME_BLACK_LIST map existing on the associated class.");
-                    }
-                    newList.add(f);
-                }
-                copy.put(c, newList);
-            }
-            args.put(FIELD_BLACK_LIST, copy);
-        }
-        else
-        {   // Ensure that at least an empty Map is in the FIELD_SPECIFIERS entry
-            args.put(FIELD_BLACK_LIST, new HashMap());
-        }
-
-        try
-        {
-            this.out = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
-        }
-        catch (UnsupportedEncodingException e)
-        {
-            throw new JSONIOException("UTF-8 not supported on your JVM.  Unable to convert object to JSON.", e);
-        }
+        singlePass = isTrue(args.get(SINGLE_PASS));
+        dispatch = config.customWriters != null ? config.writers(BASE_WRITERS) : BASE_WRITERS;
+        writers = dispatch.handlers;
+        notCustom = config.notCustom;
+        fieldSpecifiers = config.fieldSpecifiers;
+        fieldBlackList = config.fieldBlackList;
     }
 
     
@@ -519,6 +504,10 @@ public class JSONPOJOWriter implements Closeable, Flushable
     
     private JsonClassWriterBase getCustomWriter(Class c)
     {
+        if (dispatch != null)
+        {
+            return dispatch.get(c);
+        }
         JsonClassWriterBase writer = writerCache.get(c);
         if (writer == null)
         {
@@ -531,74 +520,125 @@ public class JSONPOJOWriter implements Closeable, Flushable
     
     private JsonClassWriterBase forceGetCustomWriter(Class c)
     {
-        JsonClassWriterBase closestWriter = nullWriter;
-        int minDistance = Integer.MAX_VALUE;
-
-        for (Map.Entry<Class, JsonClassWriterBase> entry : writers.entrySet())
-        {
-            Class clz = entry.getKey();
-            if (clz == c)
-            {
-                return entry.getValue();
-            }
-            int distance = JSONPOJOMetaUtils.getDistance(clz, c);
-            if (distance < minDistance)
-            {
-                minDistance = distance;
-                closestWriter = entry.getValue();
-            }
-        }
-        return closestWriter;
+        JsonClassWriterBase closestWriter = JSONPOJOClassDispatch.closest(writers, c);
+        return closestWriter == null ? nullWriter : closestWriter;
     }
 
     
     public void addWriter(Class c, JsonClassWriterBase writer)
     {
+        if (sharedWriters)
+        {
+            writers = new HashMap<Class, JsonClassWriterBase>(writers);
+            sharedWriters = false;
+            dispatch = null;
+        }
         writers.put(c, writer);
+        nativeStrings = null;
     }
 
     
-    public static void addWriterPermanent(Class c, JsonClassWriterBase writer)
+    public static synchronized void addWriterPermanent(Class c, JsonClassWriterBase writer)
+    {   // Copy on write, so writers already running keep a consistent view, and start over with an empty lookup cache
+        Map<Class, JsonClassWriterBase> temp = new HashMap<Class, JsonClassWriterBase>(BASE_WRITERS.handlers);
+        temp.put(c, writer);
+        BASE_WRITERS = new JSONPOJOClassDispatch<JsonClassWriterBase>(Collections.unmodifiableMap(temp));
+    }
+
+    
+    static Map<Class, JsonClassWriterBase> getBaseWriters()
     {
-        BASE_WRITERS.put(c, writer);
+        return BASE_WRITERS.handlers;
+    }
+
+    // Looks up, ahead of the first write, the permanent custom writer of class c
+    static void prewarm(Class c)
+    {
+        BASE_WRITERS.get(c);
     }
 
     
     public void addNotCustomWriter(Class c)
     {
+        if (sharedNotCustom)
+        {
+            notCustom = new HashSet<Class>(notCustom);
+            sharedNotCustom = false;
+        }
         notCustom.add(c);
+        nativeStrings = null;
     }
 
     
     public void write(Object obj)
     {
-        traceReferences(obj);
+        if (!singlePass)
+        {
+            traceReferences(obj);
+        }
         objVisited.clear();
         try
         {
             writeImpl(obj, true);
         }
+        catch (CycleException e)
+        {
+            throw e;
+        }
         catch (Exception e)
         {
             throw new JSONIOException("Error writing object to JSON:", e);
         }
+        finally
+        {
+            Arrays.fill(path, 0, pathDepth, null);
+            pathDepth = 0;
+        }
         flush();
         objVisited.clear();
         objsReferenced.clear();
     }
 
     
+    static final class CycleException extends JSONIOException
+    {
+        CycleException(Object obj)
+        {
+            super("Cycle detected at instance of " + obj.getClass().getName() + " while writing in " + SINGLE_PASS + " mode. Write this graph without " + SINGLE_PASS + " to emit @id / @ref.");
+        }
+    }
+
+    
+    private void enterPath(Object obj)
+    {
+        Object[] stack = path;
+        final int top = pathDepth;
+        for (int i = top - 1; i >= 0; i--)
+        {
+            if (stack[i] == obj)
+            {
+                throw new CycleException(obj);
+            }
+        }
+        if (top == stack.length)
+        {
+            stack = path = Arrays.copyOf(stack, top * 2);
+        }
+        stack[top] = obj;
+        pathDepth = top + 1;
+    }
+
+    
     protected void traceReferences(Object root)
     {
         if (root == null)
         {
             return;
         }
-        Map<Class, List<Field>> fieldSpecifiers = (Map) args.get(FIELD_SPECIFIERS);
         final Deque<Object> stack = new ArrayDeque<Object>();
         stack.addFirst(root);
-        final Map<Object, Long> visited = objVisited;
-        final Map<Object, Long> referenced = objsReferenced;
+        final JSONPOJOIdentityLongMap visited = objVisited;
+        final JSONPOJOIdentityLongMap referenced = objsReferenced;
 
         while (!stack.isEmpty())
         {
@@ -606,21 +646,20 @@ public class JSONPOJOWriter implements Closeable, Flushable
 
             if (!JSONPOJOMetaUtils.isLogicalPrimitive(obj.getClass()))
             {
-                Long id = visited.get(obj);
-                if (id != null)
+                long id = visited.getLong(obj);
+                if (id != JSONPOJOIdentityLongMap.ABSENT)
                 {   // Only write an object once.
-                    if (id == ZERO)
+                    if (id == 0)
                     {   // 2nd time this object has been seen, so give it a unique ID and mark it referenced
                         id = identity++;
-                        visited.put(obj, id);
-                        referenced.put(obj, id);
+                        visited.putLong(obj, id);
+                        referenced.putLong(obj, id);
                     }
                     continue;
                 }
                 else
-                {   // Initially, mark an object with 0 as the ID, in case it is never referenced,
-                    // we don't waste the memory to store a Long instance that is never used.
-                    visited.put(obj, ZERO);
+                {   // Initially, mark an object with 0 as the ID, in case it is never referenced.
+                    visited.putLong(obj, 0);
                 }
             }
 
@@ -686,8 +725,16 @@ public class JSONPOJOWriter implements Closeable, Flushable
         Collection<Field> fields = getFieldsUsingSpecifier(obj.getClass(), fieldSpecifiers);
         Collection<Field> fieldsBySpec = fields;
         if (fields == null)
-        {   // Trace fields using reflection
-            fields = JSONPOJOMetaUtils.getDeepDeclaredFields(obj.getClass()).values();
+        {   // Trace fields using the compiled plan of the class
+            for (final JSONPOJOWritePlan.FieldPlan field : JSONPOJOWritePlan.forClass(obj.getClass()).references)
+            {
+                final Object o = field.get(obj);
+                if (o != null && !JSONPOJOMetaUtils.isLogicalPrimitive(o.getClass()))
+                {   // Trace through objects that can reference other objects
+                    stack.addFirst(o);
+                }
+            }
+            return;
         }
         for (final Field field : fields)
         {
@@ -741,8 +788,8 @@ public class JSONPOJOWriter implements Closeable, Flushable
 
     private boolean writeOptionalReference(Object obj) throws IOException
     {
-        if (obj == null)
-        {
+        if (obj == null || singlePass)
+        {   // In SINGLE_PASS mode nothing is shared: every object is written where it appears
             return false;
         }
 
@@ -766,7 +813,7 @@ public class JSONPOJOWriter implements Closeable, Flushable
         }
 
         // Mark the object as visited by putting it in the Map (this map is re-used / clear()'d after walk()).
-        objVisited.put(obj, null);
+        objVisited.putLong(obj, 0);
         return false;
     }
 
@@ -789,6 +836,20 @@ public class JSONPOJOWriter implements Closeable, Flushable
             return;
         }
 
+        if (singlePass)
+        {   // Track the objects on the current path only, that is enough to find cycles
+            enterPath(obj);
+            writeValue(obj, showType, allowRef, allowCustom);
+            path[--pathDepth] = null;
+        }
+        else
+        {
+            writeValue(obj, showType, allowRef, allowCustom);
+        }
+    }
+
+    private void writeValue(Object obj, boolean showType, boolean allowRef, boolean allowCustom) throws IOException
+    {
         if (allowCustom && writeIfMatching(obj, showType, out))
         {
             return;
@@ -1937,10 +1998,21 @@ public class JSONPOJOWriter implements Closeable, Flushable
             first = false;
         }
 
-        final Map<Class, List<Field>> fieldSpecifiers = (Map) args.get(FIELD_SPECIFIERS);
-        final List<Field> fieldBlackListForClass = getFieldsUsingSpecifier(obj.getClass(), (Map) args.get(FIELD_BLACK_LIST));
-        final List<Field> externallySpecifiedFields = getFieldsUsingSpecifier(obj.getClass(), fieldSpecifiers);
-        if (externallySpecifiedFields != null)
+        final List<Field> fieldBlackListForClass = fieldBlackList.isEmpty() ? null : getFieldsUsingSpecifier(obj.getClass(), fieldBlackList);
+        final List<Field> externallySpecifiedFields = fieldSpecifiers.isEmpty() ? null : getFieldsUsingSpecifier(obj.getClass(), fieldSpecifiers);
+        if (externallySpecifiedFields == null && fieldBlackListForClass == null)
+        {   // Write the fields the class's generated adapter or compiled plan lists, skipping transient and static fields
+            final JSONPOJOClassAdapter adapter = JSONPOJOAdapters.forClass(obj.getClass());
+            if (adapter != null)
+            {
+                adapter.writeFields(obj, first, this);
+            }
+            else
+            {
+                writeFields(obj, first, JSONPOJOWritePlan.forClass(obj.getClass()).fields);
+            }
+        }
+        else if (externallySpecifiedFields != null)
         {
             for (Field field : externallySpecifiedFields)
             {   //output field if not on the blacklist
@@ -1971,6 +2043,251 @@ public class JSONPOJOWriter implements Closeable, Flushable
         }
     }
 
+    private void writeFields(Object obj, boolean first, JSONPOJOWritePlan.FieldPlan[] fields) throws IOException
+    {
+        final Writer output = out;
+        for (final JSONPOJOWritePlan.FieldPlan field : fields)
+        {
+            if (field.enumNonPublic && isEnumPublicOnly)
+            {
+                continue;
+            }
+
+            final int kind = field.kind;
+            Object o = null;
+            if (kind == JSONPOJOWritePlan.OBJECT || kind == JSONPOJOWritePlan.STRING)
+            {
+                o = field.get(obj);
+                if (skipNullFields && o == null)
+                {
+                    continue;
+                }
+            }
+
+            if (!first)
+            {
+                output.write(',');
+                newLine();
+            }
+            first = false;
+            output.write(field.key);
+
+            try
+            {
+                switch (kind)
+                {
+                    case JSONPOJOWritePlan.INT:
+                        writeLong(field.getInt(obj));
+                        continue;
+                    case JSONPOJOWritePlan.LONG:
+                        if (writeLongsAsStrings)
+                        {
+                            output.write('"');
+                            writeLong(field.getLong(obj));
+                            output.write('"');
+                        }
+                        else
+                        {
+                            writeLong(field.getLong(obj));
+                        }
+                        continue;
+                    case JSONPOJOWritePlan.BOOLEAN:
+                        output.write(field.getBoolean(obj) ? "true" : "false");
+                        continue;
+                    case JSONPOJOWritePlan.DOUBLE:
+                        double d = field.getDouble(obj);
+                        output.write(Double.isNaN(d) || Double.isInfinite(d) ? "null" : Double.toString(d));
+                        continue;
+                    case JSONPOJOWritePlan.FLOAT:
+                        float f = field.getFloat(obj);
+                        output.write(Float.isNaN(f) || Float.isInfinite(f) ? "null" : Float.toString(f));
+                        continue;
+                    case JSONPOJOWritePlan.SHORT:
+                        writeLong(field.getShort(obj));
+                        continue;
+                    case JSONPOJOWritePlan.BYTE:
+                        output.write((char[]) byteStrings[field.getByte(obj) + 128]);
+                        continue;
+                    case JSONPOJOWritePlan.CHAR:
+                        writeJsonUtf8String(String.valueOf(field.getChar(obj)), output);
+                        continue;
+                    default:
+                        break;
+                }
+            }
+            catch (IOException e)
+            {
+                throw e;
+            }
+            catch (Error e)
+            {
+                throw e;
+            }
+            catch (Throwable ignored)
+            {   // Same as an unreadable field
+                output.write("null");
+                continue;
+            }
+
+            writeValue(o, field.type, field.primitiveType, kind == JSONPOJOWritePlan.STRING);
+        }
+    }
+
+    private void writeValue(Object o, Class type, boolean primitiveType, boolean string) throws IOException
+    {
+        if (o == null)
+        {
+            out.write("null");
+        }
+        else if (string && writesNativeStrings())
+        {   // Strings never carry @id or @type, so skip the custom writer dispatch
+            writeJsonUtf8String((String) o, out);
+        }
+        else if (primitiveType || (neverShowType && JSONPOJOMetaUtils.isPrimitive(o.getClass())))
+        {
+            writePrimitive(o, false);
+        }
+        else
+        {
+            writeImpl(o, o.getClass() != type || alwaysShowType, true, true);
+        }
+    }
+
+    // Field writers for JSONPOJOClassAdapter implementations. Each writes a field as writeObject() does, with key
+    // being the field name quoted and followed by ':', and returns the new value of first.
+
+    private void writeKey(boolean first, String key) throws IOException
+    {
+        if (!first)
+        {
+            out.write(',');
+            newLine();
+        }
+        out.write(key);
+    }
+
+    
+    public boolean writeField(boolean first, String key, Object value, Class type) throws IOException
+    {
+        if (value == null && skipNullFields)
+        {
+            return first;
+        }
+        writeKey(first, key);
+        writeValue(value, type, JSONPOJOMetaUtils.isPrimitive(type), type == String.class);
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, boolean value) throws IOException
+    {
+        writeKey(first, key);
+        out.write(value ? "true" : "false");
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, byte value) throws IOException
+    {
+        writeKey(first, key);
+        out.write((char[]) byteStrings[value + 128]);
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, short value) throws IOException
+    {
+        writeKey(first, key);
+        writeLong(value);
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, char value) throws IOException
+    {
+        writeKey(first, key);
+        writeJsonUtf8String(String.valueOf(value), out);
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, int value) throws IOException
+    {
+        writeKey(first, key);
+        writeLong(value);
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, long value) throws IOException
+    {
+        writeKey(first, key);
+        if (writeLongsAsStrings)
+        {
+            out.write('"');
+            writeLong(value);
+            out.write('"');
+        }
+        else
+        {
+            writeLong(value);
+        }
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, float value) throws IOException
+    {
+        writeKey(first, key);
+        out.write(Float.isNaN(value) || Float.isInfinite(value) ? "null" : Float.toString(value));
+        return false;
+    }
+
+    
+    public boolean writeField(boolean first, String key, double value) throws IOException
+    {
+        writeKey(first, key);
+        out.write(Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+        return false;
+    }
+
+    private boolean writesNativeStrings()
+    {
+        if (nativeStrings == null)
+        {
+            JsonClassWriterBase writer = notCustom.contains(String.class) ? null : getCustomWriter(String.class);
+            nativeStrings = writer != null && writer.getClass() == JSONPOJOWriters.JsonStringWriter.class;
+        }
+        return nativeStrings;
+    }
+
+    private void writeLong(long value) throws IOException
+    {
+        if (value == Long.MIN_VALUE)
+        {
+            out.write("-9223372036854775808");
+            return;
+        }
+        final char[] buf = numberBuffer;
+        int pos = buf.length;
+        final boolean negative = value < 0;
+        if (negative)
+        {
+            value = -value;
+        }
+        do
+        {
+            buf[--pos] = (char) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        while (value != 0);
+        if (negative)
+        {
+            buf[--pos] = '-';
+        }
+        out.write(buf, pos, buf.length - pos);
+    }
+
     private boolean writeField(Object obj, boolean first, String fieldName, Field field, boolean allowTransient) throws IOException
     {
         if (!allowTransient && (field.getModifiers() & Modifier.TRANSIENT) != 0)
@@ -2043,46 +2360,32 @@ public class JSONPOJOWriter implements Closeable, Flushable
     
     public static void writeJsonUtf8String(String s, final Writer output) throws IOException
     {
+        if (output instanceof JSONPOJOUtf8Writer)
+        {   // Escapes and encodes straight into the byte buffer
+            ((JSONPOJOUtf8Writer) output).writeQuoted(s);
+            return;
+        }
         output.write('\"');
+        final String[] escapes = JSONPOJOUtf8Writer.ESCAPED;
         final int len = s.length();
+        int start = 0;
 
         for (int i = 0; i < len; i++)
         {
-            char c = s.charAt(i);
-
-            if (c < ' ')
-            {    // Anything less than ASCII space, write either in \\u00xx form, or the special \t, \n, etc. form
-                switch (c)
+            final char c = s.charAt(i);
+            if (c < 128 && escapes[c] != null)
+            {   // Control chars, '"' and '\\' take their escaped form from the table
+                if (i > start)
                 {
-                    case '\b':
-                        output.write("\\b");
-                        break;
-                    case '\f':
-                        output.write("\\f");
-                        break;
-                    case '\n':
-                        output.write("\\n");
-                        break;
-                    case '\r':
-                        output.write("\\r");
-                        break;
-                    case '\t':
-                        output.write("\\t");
-                        break;
-                    default:
-                        output.write(String.format("\\u%04X", (int)c));
-                        break;
+                    output.write(s, start, i - start);
                 }
+                output.write(escapes[c]);
+                start = i + 1;
             }
-            else if (c == '\\' || c == '"')
-            {
-                output.write('\\');
-                output.write(c);
-            }
-            else
-            {   // Anything else - write in UTF-8 form (multi-byte encoded) (OutputStreamWriter is UTF-8)
-                output.write(c);
-            }
+        }
+        if (start < len)
+        {   // Anything else is written as is, in runs (the output encodes it as UTF-8)
+            output.write(s, start, len - start);
         }
         output.write('\"');
     }
@@ -2107,7 +2410,10 @@ public class JSONPOJOWriter implements Closeable, Flushable
         }
         catch (Exception ignore) { }
         writerCache.clear();
-        writers.clear();
+        if (!sharedWriters)
+        {
+            writers.clear();
+        }
     }
 
     private String getId(Object o)
@@ -2120,7 +2426,7 @@ public class JSONPOJOWriter implements Closeable, Flushable
                 return String.valueOf(id);
             }
         }
-        Long id = objsReferenced.get(o);
-        return id == null ? null : Long.toString(id);
+        long id = objsReferenced.getLong(o);
+        return id == JSONPOJOIdentityLongMap.ABSENT ? null : Long.toString(id);
     }
 }
@@ -0,0 +1,128 @@
+package org.json.internal.pojo;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.exceptions.JSONIOException;
+import org.json.internal.pojo.JSONPOJOWriter.JsonClassWriterBase;
+
+
+public final class JSONPOJOWriterConfig
+{
+    final Map<String, Object> args;
+    // Custom writers, added over the permanent ones current when a writer is created, or null for none
+    final Map<Class, JsonClassWriterBase> customWriters;
+    // The custom writers added over the permanent ones, shared by the writers of this config until those change
+    private volatile JSONPOJOClassDispatch<JsonClassWriterBase> writers;
+    final Set<Class> notCustom;
+    final Map<Class, List<Field>> fieldSpecifiers;
+    final Map<Class, List<Field>> fieldBlackList;
+
+    
+    public JSONPOJOWriterConfig(Map<String, Object> optionalArgs)
+    {
+        Map<String, Object> args = new HashMap<String, Object>();
+        if (optionalArgs != null)
+        {
+            args.putAll(optionalArgs);
+        }
+        args.remove(JSONPOJOWriter.JsonClassWriterEx.JSON_WRITER);
+        if (!args.containsKey(JSONPOJOWriter.CLASSLOADER))
+        {
+            args.put(JSONPOJOWriter.CLASSLOADER, JSONPOJOWriter.class.getClassLoader());
+        }
+
+        Map<Class, JsonClassWriterBase> customWriters = (Map<Class, JsonClassWriterBase>) args.get(JSONPOJOWriter.CUSTOM_WRITER_MAP);
+        this.customWriters = customWriters == null || customWriters.isEmpty() ? null : Collections.unmodifiableMap(new HashMap<Class, JsonClassWriterBase>(customWriters));
+
+        Set<Class> notCustom = new HashSet<Class>();
+        Collection<Class> notCustomClasses = (Collection<Class>) args.get(JSONPOJOWriter.NOT_CUSTOM_WRITER_MAP);
+        if (notCustomClasses != null)
+        {
+            notCustom.addAll(notCustomClasses);
+        }
+        this.notCustom = Collections.unmodifiableSet(notCustom);
+
+        // Convert String field names to Java Field instances (makes it easier for user to set this up)
+        fieldSpecifiers = resolveFields((Map<Class, List<String>>) args.get(JSONPOJOWriter.FIELD_SPECIFIERS), JSONPOJOWriter.FIELD_SPECIFIERS);
+        args.put(JSONPOJOWriter.FIELD_SPECIFIERS, fieldSpecifiers);
+        fieldBlackList = resolveFields((Map<Class, List<String>>) args.get(JSONPOJOWriter.FIELD_NAME_BLACK_LIST), JSONPOJOWriter.FIELD_NAME_BLACK_LIST);
+        args.put(JSONPOJOWriter.FIELD_BLACK_LIST, fieldBlackList);
+
+        this.args = Collections.unmodifiableMap(args);
+    }
+
+    private static Map<Class, List<Field>> resolveFields(Map<Class, List<String>> names, String option)
+    {
+        if (names == null || names.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+        Map<Class, List<Field>> resolved = new HashMap<Class, List<Field>>();
+        for (Map.Entry<Class, List<String>> entry : names.entrySet())
+        {
+            Class c = entry.getKey();
+            List<String> fields = entry.getValue();
+            List<Field> newList = new ArrayList<Field>(fields.size());
+
+            Map<String, Field> classFields = JSONPOJOMetaUtils.getDeepDeclaredFields(c);
+
+            for (String field : fields)
+            {
+                Field f = classFields.get(field);
+                if (f == null)
+                {
+                    throw new JSONIOException("Unable to locate field: " + field + " on class: " + c.getName() + ". Make sure the fields in the " + option + " map existing on the associated class.");
+                }
+                newList.add(f);
+            }
+            resolved.put(c, Collections.unmodifiableList(newList));
+        }
+        return Collections.unmodifiableMap(resolved);
+    }
+
+    // The dispatch of the custom writers over base, the permanent ones, made again once base has been replaced
+    JSONPOJOClassDispatch<JsonClassWriterBase> writers(JSONPOJOClassDispatch<JsonClassWriterBase> base)
+    {
+        JSONPOJOClassDispatch<JsonClassWriterBase> writers = this.writers;
+        if (writers == null || writers.base != base)
+        {
+            writers = base.with(customWriters);
+            this.writers = writers;
+        }
+        return writers;
+    }
+
+    
+    public Map<String, Object> getArgs()
+    {
+        return args;
+    }
+
+    
+    public JSONPOJOWriter newWriter(OutputStream out)
+    {
+        return new JSONPOJOWriter(out, this);
+    }
+
+    
+    public JSONPOJOWriter newWriter(ByteBuffer out)
+    {
+        return new JSONPOJOWriter(out, this);
+    }
+
+    
+    public String toJson(Object item)
+    {
+        return JSONPOJOWriter.objectToJson(item, this);
+    }
+}
@@ -7,6 +7,8 @@ import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.text.Format;
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
@@ -42,9 +44,10 @@ public class JSONPOJOWriters
         public void write(Object obj, boolean showType, Writer output) throws IOException
         {
             Calendar cal = (Calendar) obj;
-            JSONPOJOMetaUtils.dateFormat.get().setTimeZone(cal.getTimeZone());
+            StringBuilder time = new StringBuilder(28);
+            JSONPOJODates.formatCalendarTime(cal.getTimeInMillis(), cal.getTimeZone(), time);
             output.write("\"time\":\"");
-            output.write(JSONPOJOMetaUtils.dateFormat.get().format(cal.getTime()));
+            output.write(time.toString());
             output.write("\",\"zone\":\"");
             output.write(cal.getTimeZone().getID());
             output.write('"');
@@ -124,6 +127,60 @@ public class JSONPOJOWriters
         public void writePrimitiveForm(Object o, Writer output) throws IOException { }
     }
 
+    // Writes a java.time value as its ISO-8601 text
+    public static class JavaTimeWriter implements JSONPOJOWriter.JsonClassWriter
+    {
+        private final DateTimeFormatter formatter;
+
+        protected JavaTimeWriter(DateTimeFormatter formatter)
+        {
+            this.formatter = formatter;
+        }
+
+        public void write(Object obj, boolean showType, Writer output) throws IOException
+        {
+            if (showType)
+            {
+                output.write("\"value\":");
+            }
+            writePrimitiveForm(obj, output);
+        }
+
+        public boolean hasPrimitiveForm() { return true; }
+
+        public void writePrimitiveForm(Object o, Writer output) throws IOException
+        {
+            output.write('"');
+            output.write(formatter.format((TemporalAccessor) o));
+            output.write('"');
+        }
+    }
+
+    public static class InstantWriter extends JavaTimeWriter
+    {
+        public InstantWriter() { super(DateTimeFormatter.ISO_INSTANT); }
+    }
+
+    public static class LocalDateWriter extends JavaTimeWriter
+    {
+        public LocalDateWriter() { super(DateTimeFormatter.ISO_LOCAL_DATE); }
+    }
+
+    public static class LocalDateTimeWriter extends JavaTimeWriter
+    {
+        public LocalDateTimeWriter() { super(DateTimeFormatter.ISO_LOCAL_DATE_TIME); }
+    }
+
+    public static class OffsetDateTimeWriter extends JavaTimeWriter
+    {
+        public OffsetDateTimeWriter() { super(DateTimeFormatter.ISO_OFFSET_DATE_TIME); }
+    }
+
+    public static class ZonedDateTimeWriter extends JavaTimeWriter
+    {
+        public ZonedDateTimeWriter() { super(DateTimeFormatter.ISO_ZONED_DATE_TIME); }
+    }
+
     public static class ClassWriter implements JSONPOJOWriter.JsonClassWriter
     {
         public void write(Object obj, boolean showType, Writer output) throws IOException
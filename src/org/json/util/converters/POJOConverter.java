@@ -3,30 +3,53 @@ package org.json.util.converters;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.internal.pojo.JSONPOJOReader;
+import org.json.internal.pojo.JSONPOJOReaderConfig;
 import org.json.internal.pojo.JSONPOJOWriter;
+import org.json.internal.pojo.JSONPOJOWriterConfig;
 
 public class POJOConverter {
 	
-	public static String toJSON(Object pojo) {
-		Map<String, Object> options = new HashMap<String, Object>();
-		options.put(JSONPOJOWriter.DATE_FORMAT, "yyyy/MM/dd HH:mm");
-		options.put(JSONPOJOWriter.PRETTY_PRINT, true);
-		options.put(JSONPOJOWriter.WRITE_LONGS_AS_STRINGS, true);
-		options.put(JSONPOJOWriter.SKIP_NULL_FIELDS, false);
-		return JSONPOJOWriter.objectToJson(pojo, options);
-	}
-		
-	public static String toJSON(Object pojo, String date_format, boolean longs_as_strings, boolean skip_nulls, boolean prettify) {
+	private static final JSONPOJOWriterConfig DEFAULT_WRITER_CONFIG = writerConfig("yyyy/MM/dd HH:mm", true, false, true);
+	private static final ConcurrentMap<String, JSONPOJOWriterConfig> WRITER_CONFIGS = new ConcurrentHashMap<String, JSONPOJOWriterConfig>();
+	private static final int MAX_WRITER_CONFIGS = 64;
+	private static final JSONPOJOReaderConfig OBJECT_READER_CONFIG = readerConfig(false);
+	private static final JSONPOJOReaderConfig MAP_READER_CONFIG = readerConfig(true);
+	
+	private static JSONPOJOWriterConfig writerConfig(String date_format, boolean longs_as_strings, boolean skip_nulls, boolean prettify) {
 		Map<String, Object> options = new HashMap<String, Object>();
 		options.put(JSONPOJOWriter.DATE_FORMAT, date_format);
 		options.put(JSONPOJOWriter.PRETTY_PRINT, prettify);
 		options.put(JSONPOJOWriter.WRITE_LONGS_AS_STRINGS, longs_as_strings);
 		options.put(JSONPOJOWriter.SKIP_NULL_FIELDS, skip_nulls);
-		return JSONPOJOWriter.objectToJson(pojo, options);
+		return new JSONPOJOWriterConfig(options);
+	}
+	
+	private static JSONPOJOReaderConfig readerConfig(boolean use_maps) {
+		Map<String, Object> options = new HashMap<String, Object>();
+		options.put(JSONPOJOReader.USE_MAPS, use_maps);
+		return new JSONPOJOReaderConfig(options);
+	}
+	
+	public static String toJSON(Object pojo) {
+		return DEFAULT_WRITER_CONFIG.toJson(pojo);
+	}
+		
+	public static String toJSON(Object pojo, String date_format, boolean longs_as_strings, boolean skip_nulls, boolean prettify) {
+		String key = (longs_as_strings ? "L" : "-") + (skip_nulls ? "S" : "-") + (prettify ? "P" : "-") + date_format;
+		JSONPOJOWriterConfig config = WRITER_CONFIGS.get(key);
+		if (config == null) {
+			config = writerConfig(date_format, longs_as_strings, skip_nulls, prettify);
+			if (WRITER_CONFIGS.size() < MAX_WRITER_CONFIGS) {
+				WRITER_CONFIGS.putIfAbsent(key, config);
+			}
+		}
+		return config.toJson(pojo);
 	}
 	
 	public static JSONObject toJSONObject(Object pojo) {
@@ -54,30 +77,18 @@ public class POJOConverter {
 	}
 	
 	public static Object toObject(String json, boolean use_maps) {
-		if(use_maps == true) {
-			Map<String, Object> options = new HashMap<String, Object>();
-			options.put(JSONPOJOReader.USE_MAPS, true);
-			return JSONPOJOReader.jsonToJava(json, options);
-		}else {
-			return JSONPOJOReader.jsonToJava(json);
-		}
+		return (use_maps ? MAP_READER_CONFIG : OBJECT_READER_CONFIG).jsonToJava(json);
 	}
 	
 	public static Object toObject(String json) {
-		return JSONPOJOReader.jsonToJava(json);
+		return OBJECT_READER_CONFIG.jsonToJava(json);
 	}
 	
 	public static Object toObject(InputStream json, boolean use_maps) {
-		if(use_maps == true) {
-			Map<String, Object> options = new HashMap<String, Object>();
-			options.put(JSONPOJOReader.USE_MAPS, true);
-			return JSONPOJOReader.jsonToJava(json, options);
-		}else {
-			return JSONPOJOReader.jsonToJava(json, new HashMap<>());
-		}
+		return (use_maps ? MAP_READER_CONFIG : OBJECT_READER_CONFIG).jsonToJava(json);
 	}
 	
 	public static Object toObject(InputStream json) {
-		return JSONPOJOReader.jsonToJava(json, new HashMap<>());
+		return OBJECT_READER_CONFIG.jsonToJava(json);
 	}
 }